@@ -0,0 +1,452 @@
+/**
+ * AbstractCompactHeap
+ *
+ * Fibonacci heap with cascading cuts over CompactNode, where every element is a
+ * single object holding its key, its links and its packed rank and mark.
+ * Without heapifyUp there is no need to swap items between nodes, so the node is
+ * the handle and key comparisons in link and successiveLink read the node directly.
+ * Subclasses add the payload field and the typed insert.
+ *
+ */
+abstract class AbstractCompactHeap<N extends CompactNode> implements FootprintAware
+{
+    public final boolean lazyMelds;
+    protected CompactNode min;
+    protected int size;
+    protected int numTrees;
+    protected int numMarkedNodes;
+    protected int totalLinks;
+    protected int totalCuts;
+
+    static final int COMPACT_NODE_FIELD_BYTES = 4 + 4 * HeapFootprint.REFERENCE_BYTES + 4;
+    private static final long ENGINE_BYTES = HeapFootprint.objectBytes(1 + HeapFootprint.REFERENCE_BYTES + 5 * 4);
+
+    /**
+     *
+     * Constructor to initialize an empty heap, with or without lazy melds.
+     * complexity O(1)
+     *
+     */
+    protected AbstractCompactHeap(boolean lazyMelds)
+    {
+        this.lazyMelds = lazyMelds;
+    }
+
+    /**
+     *
+     * add a new single node tree to the heap and return it.
+     * for lazy meld complexity O(1)
+     * for non-lazy meld complexity O(log n)
+     *
+     */
+    protected final N insertNode(N node)
+    {
+        this.size++;
+        this.numTrees++;
+        if (this.min == null)
+        {
+            this.min = node;
+            return node;
+        }
+        concatenateToRootList(node);
+        if (precedes(node, this.min)) this.min = node;
+        if (!this.lazyMelds) successiveLink();
+        return node;
+    }
+
+    /**
+     *
+     * return the min node
+     * complexity O(1)
+     *
+     */
+    @SuppressWarnings("unchecked")
+    public final N findMin()
+    {
+        return (N) this.min;
+    }
+
+    /**
+     *
+     * pre: not in root list.
+     * concatenate the circular list starting at first to the root list.
+     * complexity O(1)
+     *
+     */
+    private void concatenateToRootList(CompactNode first)
+    {
+        CompactNode rootFirst = this.min;
+        CompactNode rootLast = rootFirst.prev;
+        CompactNode last = first.prev;
+        rootLast.next = first;
+        first.prev = rootLast;
+        last.next = rootFirst;
+        rootFirst.prev = last;
+    }
+
+    /**
+     *
+     * link trees with the same rank to reconstruct the heap.
+     * complexity O(numTrees + log n)
+     *
+     */
+    private void successiveLink()
+    {
+        int bucketSize = (this.size == 0) ? 1 : (int) (1.5 * Math.ceil(Math.log(this.size) / Math.log(2)) + 2);
+        CompactNode[] bucket = new CompactNode[bucketSize];
+        CompactNode x = this.min;
+        x.prev.next = null;
+        while (x != null)
+        {
+            CompactNode y = x;
+            x = x.next;
+            int rank = y.rankAndMark & CompactNode.RANK_MASK;
+            while (bucket[rank] != null)
+            {
+                CompactNode other = bucket[rank];
+                bucket[rank] = null;
+                y = link(y, other);
+                rank++;
+            }
+            bucket[rank] = y;
+        }
+        this.min = null;
+        this.numTrees = 0;
+        CompactNode first = null;
+        CompactNode last = null;
+        for (int i = 0; i < bucket.length; i++)
+        {
+            CompactNode node = bucket[i];
+            if (node == null) continue;
+            this.numTrees++;
+            if (first == null)
+            {
+                first = node;
+                this.min = node;
+            }
+            else
+            {
+                last.next = node;
+                node.prev = last;
+                if (precedes(node, this.min)) this.min = node;
+            }
+            last = node;
+        }
+        last.next = first;
+        first.prev = last;
+    }
+
+    /**
+     *
+     * link two trees of the same rank, the root will be the node that comes first.
+     * roots are never marked, so the rank of the new root can be incremented in place.
+     * complexity O(1)
+     *
+     */
+    private CompactNode link(CompactNode x, CompactNode y)
+    {
+        CompactNode smaller = x;
+        CompactNode larger = y;
+        if (!precedes(x, y))
+        {
+            smaller = y;
+            larger = x;
+        }
+        CompactNode child = smaller.child;
+        if (child == null)
+        {
+            larger.next = larger;
+            larger.prev = larger;
+        }
+        else
+        {
+            larger.next = child;
+            larger.prev = child.prev;
+            child.prev.next = larger;
+            child.prev = larger;
+        }
+        smaller.child = larger;
+        larger.parent = smaller;
+        smaller.rankAndMark++;
+        this.totalLinks++;
+        return smaller;
+    }
+
+    /**
+     *
+     * Delete the minimal item.
+     * for lazy melds complexity O(n), for non-lazy melds complexity O(log n).
+     *
+     */
+    public final void deleteMin()
+    {
+        CompactNode minNode = this.min;
+        if (minNode == null) return;
+        this.size--;
+        CompactNode child = minNode.child;
+        if (minNode.next == minNode && child == null)
+        {
+            this.min = null;
+            this.numTrees = 0;
+            this.numMarkedNodes = 0;
+            detach(minNode);
+            return;
+        }
+        if (child != null)
+        {
+            CompactNode current = child;
+            do
+            {
+                current.parent = null;
+                if (current.rankAndMark < 0)
+                {
+                    current.rankAndMark &= CompactNode.RANK_MASK;
+                    this.numMarkedNodes--;
+                }
+                current = current.next;
+            } while (current != child);
+            concatenateToRootList(child);
+        }
+        CompactNode preMin = minNode.prev;
+        preMin.next = minNode.next;
+        minNode.next.prev = preMin;
+        this.min = preMin;
+        detach(minNode);
+        successiveLink();
+    }
+
+    /**
+     *
+     * clear the links of a removed node so isLive reports false and stale handles are ignored.
+     * complexity O(1)
+     *
+     */
+    private void detach(CompactNode node)
+    {
+        node.next = null;
+        node.prev = null;
+        node.child = null;
+        node.parent = null;
+        node.rankAndMark = 0;
+        onRemove(node);
+    }
+
+    /**
+     *
+     * called once for every node that leaves the heap, after its links are cleared.
+     * complexity O(1)
+     *
+     */
+    protected void onRemove(CompactNode node)
+    {
+    }
+
+    /**
+     *
+     * pre: 0<=diff<=x.key
+     * Decrease the key of x by diff and fix the heap with cascading cuts.
+     * with lazy melds complexity O(1) amortized, with non-lazy melds every cut consolidates.
+     *
+     */
+    public final void decreaseKey(N x, int diff)
+    {
+        if (x == null || diff < 0 || x.next == null) return;
+        lowerKey(x, x.key - diff);
+    }
+
+    /**
+     *
+     * set the key of a live node x to newKey <= x.key and fix the heap with cascading cuts.
+     *
+     */
+    private void lowerKey(CompactNode x, int newKey)
+    {
+        x.key = newKey;
+        CompactNode parent = x.parent;
+        if (parent != null && precedes(x, parent))
+        {
+            cut(x);
+            while (parent.parent != null)
+            {
+                if (parent.rankAndMark >= 0)
+                {
+                    parent.rankAndMark |= CompactNode.MARK_BIT;
+                    this.numMarkedNodes++;
+                    break;
+                }
+                CompactNode node = parent;
+                parent = node.parent;
+                cut(node);
+            }
+        }
+        if (precedes(x, this.min)) this.min = x;
+    }
+
+    /**
+     *
+     * cut node from its parent and add it to the root list.
+     * complexity O(1), or O(log n) for non-lazy melds
+     *
+     */
+    private void cut(CompactNode node)
+    {
+        CompactNode parent = node.parent;
+        this.totalCuts++;
+        if ((parent.rankAndMark & CompactNode.RANK_MASK) > 1)
+        {
+            node.prev.next = node.next;
+            node.next.prev = node.prev;
+            if (parent.child == node) parent.child = node.next;
+        }
+        else
+        {
+            parent.child = null;
+        }
+        parent.rankAndMark--;
+        if (node.rankAndMark < 0)
+        {
+            node.rankAndMark &= CompactNode.RANK_MASK;
+            this.numMarkedNodes--;
+        }
+        node.parent = null;
+        node.next = node;
+        node.prev = node;
+        concatenateToRootList(node);
+        if (precedes(node, this.min)) this.min = node;
+        this.numTrees++;
+        if (!this.lazyMelds) successiveLink();
+    }
+
+    /**
+     *
+     * Delete x from the heap.
+     * complexity as deleteMin
+     *
+     */
+    public final void delete(N x)
+    {
+        if (x == null || x.next == null) return;
+        lowerKey(x, Integer.MIN_VALUE);
+        this.min = x;
+        deleteMin();
+    }
+
+    /**
+     *
+     * Meld the heap with heap2, which is left empty.
+     * pre: heap2.lazyMelds = this.lazyMelds
+     * complexity O(1) for lazy melds
+     * complexity O(log n) for non-lazy melds
+     *
+     */
+    protected final void meldWith(AbstractCompactHeap<N> heap2)
+    {
+        this.totalCuts += heap2.totalCuts;
+        this.totalLinks += heap2.totalLinks;
+        this.numMarkedNodes += heap2.numMarkedNodes;
+        this.numTrees += heap2.numTrees;
+        this.size += heap2.size;
+        CompactNode other = heap2.min;
+        heap2.min = null;
+        heap2.size = 0;
+        heap2.numTrees = 0;
+        heap2.numMarkedNodes = 0;
+        if (other == null) return;
+        if (this.min == null)
+        {
+            this.min = other;
+            return;
+        }
+        concatenateToRootList(other);
+        if (precedes(other, this.min)) this.min = other;
+        if (!this.lazyMelds) successiveLink();
+    }
+
+    /**
+     *
+     * return whether a comes before b: a smaller key, or an equal key that precedesOnTie orders first.
+     * the tie hook is only called for equal keys, so distinct keys cost one int comparison.
+     * complexity O(1)
+     *
+     */
+    private boolean precedes(CompactNode a, CompactNode b)
+    {
+        return a.key < b.key || (a.key == b.key && precedesOnTie(a, b));
+    }
+
+    /**
+     *
+     * return whether a comes before b when their keys are equal.
+     * the default leaves equal keys unordered, subclasses may order them.
+     * complexity O(1)
+     *
+     */
+    protected boolean precedesOnTie(CompactNode a, CompactNode b)
+    {
+        return false;
+    }
+
+    /**
+     *
+     * Return the size in bytes of one node of this engine, including its payload field.
+     *
+     */
+    protected abstract long nodeBytes();
+
+    /**
+     *
+     * Return the estimated bytes of payload objects referenced by the nodes, 0 for inline payloads.
+     *
+     */
+    protected long payloadBytes()
+    {
+        return 0;
+    }
+
+    public final long estimatedBytes()
+    {
+        return footprint().total();
+    }
+
+    /**
+     *
+     * Return the estimated memory use of the heap. there are no item objects,
+     * so itemBytes is always 0.
+     * complexity O(1)
+     *
+     */
+    public final HeapFootprint footprint()
+    {
+        return new HeapFootprint(
+            this.size * nodeBytes(),
+            0,
+            payloadBytes(),
+            HeapFootprint.consolidationBufferBytes(this.size),
+            ENGINE_BYTES);
+    }
+
+    public final int size()
+    {
+        return this.size;
+    }
+
+    public final int numTrees()
+    {
+        return this.numTrees;
+    }
+
+    public final int numMarkedNodes()
+    {
+        return this.numMarkedNodes;
+    }
+
+    public final int totalLinks()
+    {
+        return this.totalLinks;
+    }
+
+    public final int totalCuts()
+    {
+        return this.totalCuts;
+    }
+}
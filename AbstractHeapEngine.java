@@ -0,0 +1,396 @@
+/**
+ * AbstractHeapEngine
+ *
+ * Shared structure of the specialized heap engines.
+ * Every method here is final and free of mode checks, so the calls made by
+ * the final subclasses are bound statically and can be inlined by the JIT.
+ * The subclasses only decide when to consolidate and how to fix a decreased key.
+ *
+ */
+abstract class AbstractHeapEngine implements HeapEngine
+{
+    protected Heap.HeapItem min;
+    protected int size;
+    protected int numTrees;
+    protected int numMarkedNodes;
+    protected int totalLinks;
+    protected int totalCuts;
+    protected int totalHeapifyCosts;
+    private int payloadCount;
+    private long payloadChars;
+
+    private static final long ENGINE_BYTES = HeapFootprint.objectBytes(HeapFootprint.REFERENCE_BYTES + 7 * 4 + 8);
+
+    /**
+     *
+     * add a single node tree to the root list and update the min.
+     * complexity O(1)
+     *
+     */
+    protected final void addRoot(Heap.HeapNode node)
+    {
+        concatenateToRootList(node.item);
+        if (node.item.key < this.min.key) this.min = node.item;
+        this.size++;
+        this.numTrees++;
+        countPayload(node.item.info, 1);
+    }
+
+    /**
+     *
+     * move the trees and the stats of other into this engine.
+     * returns true when both engines had trees, meaning the root lists were concatenated.
+     * complexity O(1)
+     *
+     */
+    protected final boolean absorb(AbstractHeapEngine other)
+    {
+        this.totalCuts += other.totalCuts;
+        this.totalLinks += other.totalLinks;
+        this.totalHeapifyCosts += other.totalHeapifyCosts;
+        this.numMarkedNodes += other.numMarkedNodes;
+        this.numTrees += other.numTrees;
+        this.size += other.size;
+        this.payloadCount += other.payloadCount;
+        this.payloadChars += other.payloadChars;
+        if (other.min == null) return false;
+        if (this.min == null)
+        {
+            this.min = other.min;
+            return false;
+        }
+        concatenateToRootList(other.min);
+        if (other.min.key < this.min.key) this.min = other.min;
+        return true;
+    }
+
+    /**
+     *
+     * pre: not in root list.
+     * concatenate the circular list of newNode to the root list.
+     * complexity O(1)
+     *
+     */
+    protected final void concatenateToRootList(Heap.HeapItem newNode)
+    {
+        if (this.min == null)
+        {
+            this.min = newNode;
+            return;
+        }
+        Heap.HeapNode first = this.min.node;
+        Heap.HeapNode last = first.prev;
+        Heap.HeapNode newStart = newNode.node;
+        Heap.HeapNode newEnd = newStart.prev;
+        last.next = newStart;
+        newStart.prev = last;
+        newEnd.next = first;
+        first.prev = newEnd;
+    }
+
+    /**
+     *
+     * link trees with the same rank to reconstruct the heap.
+     * complexity O(numTrees + log n)
+     *
+     */
+    protected final void successiveLink()
+    {
+        int arraySize = (size == 0) ? 1 : (int) (1.5 * Math.ceil(Math.log(this.size) / Math.log(2)) + 2);
+        Heap.HeapNode[] bucket = new Heap.HeapNode[arraySize];
+        Heap.HeapNode x = this.min.node;
+        x.prev.next = null;
+        while (x != null)
+        {
+            Heap.HeapNode y = x;
+            x = x.next;
+            while (bucket[y.rank] != null)
+            {
+                Heap.HeapNode other = bucket[y.rank];
+                bucket[y.rank] = null;
+                y = link(y, other);
+            }
+            bucket[y.rank] = y;
+        }
+        this.min = null;
+        this.numTrees = 0;
+        Heap.HeapNode first = null;
+        Heap.HeapNode last = null;
+        for (int i = 0; i < bucket.length; i++)
+        {
+            Heap.HeapNode node = bucket[i];
+            if (node == null) continue;
+            this.numTrees++;
+            if (first == null)
+            {
+                first = node;
+                node.next = node;
+                node.prev = node;
+                this.min = node.item;
+            }
+            else
+            {
+                last.next = node;
+                node.prev = last;
+                node.next = first;
+                first.prev = node;
+                if (node.item.key < this.min.key) this.min = node.item;
+            }
+            last = node;
+        }
+    }
+
+    /**
+     *
+     * link two trees of the same rank, the root will be the smaller of the two nodes.
+     * complexity O(1)
+     *
+     */
+    private Heap.HeapNode link(Heap.HeapNode x, Heap.HeapNode y)
+    {
+        Heap.HeapNode smaller = x;
+        Heap.HeapNode larger = y;
+        if (y.item.key <= x.item.key)
+        {
+            smaller = y;
+            larger = x;
+        }
+        Heap.HeapNode child = smaller.child;
+        if (child == null)
+        {
+            smaller.child = larger;
+            larger.next = larger;
+            larger.prev = larger;
+        }
+        else
+        {
+            larger.next = child;
+            larger.prev = child.prev;
+            child.prev.next = larger;
+            child.prev = larger;
+            smaller.child = larger;
+        }
+        larger.parent = smaller;
+        smaller.rank++;
+        this.totalLinks++;
+        return smaller;
+    }
+
+    /**
+     *
+     * Delete the minimal item, always followed by a consolidation.
+     * complexity O(numTrees + log n) amortized
+     *
+     */
+    public final void deleteMin()
+    {
+        if (this.min == null) return;
+        this.size--;
+        Heap.HeapNode minNode = this.min.node;
+        Heap.HeapItem minItem = this.min;
+        countPayload(minItem.info, -1);
+        if (minNode.next == minNode && minNode.child == null)
+        {
+            this.min = null;
+            this.numTrees = 0;
+            this.numMarkedNodes = 0;
+            minItem.node = null;
+            return;
+        }
+        Heap.HeapNode child = minNode.child;
+        if (child != null)
+        {
+            Heap.HeapNode current = child;
+            do
+            {
+                current.parent = null;
+                if (current.lostChildren > 0)
+                {
+                    current.lostChildren = 0;
+                    this.numMarkedNodes--;
+                }
+                current = current.next;
+            } while (current != child);
+            concatenateToRootList(child.item);
+        }
+        Heap.HeapNode preMin = minNode.prev;
+        preMin.next = minNode.next;
+        minNode.next.prev = preMin;
+        this.min = preMin.item;
+        successiveLink();
+        minItem.node = null;
+    }
+
+    /**
+     *
+     * add (sign = 1) or remove (sign = -1) a payload from the footprint counters.
+     * complexity O(1)
+     *
+     */
+    private void countPayload(String info, int sign)
+    {
+        if (info == null) return;
+        this.payloadCount += sign;
+        this.payloadChars += sign * info.length();
+    }
+
+    public final long estimatedBytes()
+    {
+        return footprint().total();
+    }
+
+    /**
+     *
+     * Return the estimated memory use of the engine, computed from maintained counters.
+     * complexity O(1)
+     *
+     */
+    public final HeapFootprint footprint()
+    {
+        return new HeapFootprint(
+            this.size * Heap.NODE_BYTES,
+            this.size * Heap.ITEM_BYTES,
+            HeapFootprint.stringBytes(this.payloadCount, this.payloadChars),
+            HeapFootprint.consolidationBufferBytes(this.size),
+            ENGINE_BYTES);
+    }
+
+    /**
+     *
+     * cut node from its parent and add it to the root list, updating the min.
+     * returns the former parent so the caller can record the loss with markLoss.
+     * complexity O(1)
+     *
+     */
+    protected final Heap.HeapNode cut(Heap.HeapNode node)
+    {
+        Heap.HeapNode parent = node.parent;
+        this.totalCuts++;
+        if (parent.rank > 1)
+        {
+            node.prev.next = node.next;
+            node.next.prev = node.prev;
+            if (parent.child == node) parent.child = node.next;
+        }
+        else
+        {
+            parent.child = null;
+        }
+        parent.rank--;
+        if (node.lostChildren > 0)
+        {
+            node.lostChildren = 0;
+            this.numMarkedNodes--;
+        }
+        node.parent = null;
+        node.prev = node;
+        node.next = node;
+        concatenateToRootList(node.item);
+        if (node.item.key < this.min.key) this.min = node.item;
+        this.numTrees++;
+        return parent;
+    }
+
+    /**
+     *
+     * record that node lost a child, with the classic tolerance of two lost children.
+     * returns true when node must be cut as well.
+     * complexity O(1)
+     *
+     */
+    protected final boolean markLoss(Heap.HeapNode node)
+    {
+        if (node.parent == null) return false;
+        if (node.lostChildren > 0)
+        {
+            node.lostChildren = 0;
+            this.numMarkedNodes--;
+            return true;
+        }
+        node.lostChildren = 1;
+        this.numMarkedNodes++;
+        return false;
+    }
+
+    /**
+     *
+     * swap the item of node up until the heap order holds.
+     * complexity O(log n)
+     *
+     */
+    protected final void heapifyUp(Heap.HeapNode node)
+    {
+        Heap.HeapItem item = node.item;
+        Heap.HeapNode parent = node.parent;
+        while (parent != null && item.key < parent.item.key)
+        {
+            this.totalHeapifyCosts++;
+            Heap.HeapItem parentItem = parent.item;
+            node.item = parentItem;
+            parentItem.node = node;
+            node = parent;
+            parent = node.parent;
+        }
+        node.item = item;
+        item.node = node;
+    }
+
+    /**
+     *
+     * swap the item of node up to the root of its tree, whatever the keys above it.
+     * used by delete, which moves its item to a root without comparing keys.
+     * complexity O(log n)
+     *
+     */
+    protected final void heapifyToRoot(Heap.HeapNode node)
+    {
+        Heap.HeapItem item = node.item;
+        Heap.HeapNode parent = node.parent;
+        while (parent != null)
+        {
+            this.totalHeapifyCosts++;
+            Heap.HeapItem parentItem = parent.item;
+            node.item = parentItem;
+            parentItem.node = node;
+            node = parent;
+            parent = node.parent;
+        }
+        node.item = item;
+        item.node = node;
+    }
+
+    public final Heap.HeapItem findMin()
+    {
+        return this.min;
+    }
+
+    public final int size()
+    {
+        return this.size;
+    }
+
+    public final int numTrees()
+    {
+        return this.numTrees;
+    }
+
+    public final int numMarkedNodes()
+    {
+        return this.numMarkedNodes;
+    }
+
+    public final int totalLinks()
+    {
+        return this.totalLinks;
+    }
+
+    public final int totalCuts()
+    {
+        return this.totalCuts;
+    }
+
+    public final int totalHeapifyCosts()
+    {
+        return this.totalHeapifyCosts;
+    }
+}
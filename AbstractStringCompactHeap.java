@@ -0,0 +1,76 @@
+/**
+ * AbstractStringCompactHeap
+ *
+ * Compact heap whose nodes carry a String payload. It keeps the payload counters
+ * used by the footprint, so subclasses only add their node fields and ordering.
+ *
+ */
+abstract class AbstractStringCompactHeap<N extends StringCompactNode> extends AbstractCompactHeap<N>
+{
+    static final int STRING_NODE_FIELD_BYTES = COMPACT_NODE_FIELD_BYTES + HeapFootprint.REFERENCE_BYTES;
+
+    private int payloadCount;
+    private long payloadChars;
+
+    /**
+     *
+     * Constructor to initialize an empty heap, with or without lazy melds.
+     * complexity O(1)
+     *
+     */
+    protected AbstractStringCompactHeap(boolean lazyMelds)
+    {
+        super(lazyMelds);
+    }
+
+    /**
+     *
+     * count the payload of node and add it to the heap as a new single node tree.
+     * for lazy meld complexity O(1)
+     * for non-lazy meld complexity O(log n)
+     *
+     */
+    protected final N insertPayloadNode(N node)
+    {
+        countPayload(node.info, 1);
+        return insertNode(node);
+    }
+
+    /**
+     *
+     * Meld the heap with heap2 together with its payload counters, heap2 is left empty.
+     * pre: heap2.lazyMelds = this.lazyMelds
+     *
+     */
+    protected final void meldPayloadsWith(AbstractStringCompactHeap<N> heap2)
+    {
+        this.payloadCount += heap2.payloadCount;
+        this.payloadChars += heap2.payloadChars;
+        heap2.payloadCount = 0;
+        heap2.payloadChars = 0;
+        meldWith(heap2);
+    }
+
+    protected final void onRemove(CompactNode node)
+    {
+        countPayload(((StringCompactNode) node).info, -1);
+    }
+
+    /**
+     *
+     * add (sign = 1) or remove (sign = -1) a payload from the footprint counters.
+     * complexity O(1)
+     *
+     */
+    private void countPayload(String info, int sign)
+    {
+        if (info == null) return;
+        this.payloadCount += sign;
+        this.payloadChars += sign * info.length();
+    }
+
+    protected final long payloadBytes()
+    {
+        return HeapFootprint.stringBytes(this.payloadCount, this.payloadChars);
+    }
+}
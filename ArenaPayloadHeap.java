@@ -0,0 +1,107 @@
+/**
+ * ArenaPayloadHeap
+ *
+ * Cut based compact heap whose string payloads live off heap in a PayloadArena.
+ * A node stores only the reference and the length of its payload, the chars are
+ * read lazily through the arena and freed when the node leaves the heap.
+ *
+ */
+public final class ArenaPayloadHeap extends AbstractCompactHeap<ArenaPayloadHeap.Node>
+{
+    private static final long NODE_BYTES = HeapFootprint.objectBytes(COMPACT_NODE_FIELD_BYTES + 8 + 4);
+
+    public final PayloadArena arena;
+
+    /**
+     *
+     * Constructor to initialize an empty heap storing its payloads in arena.
+     * several heaps may share one arena.
+     * complexity O(1)
+     *
+     */
+    public ArenaPayloadHeap(boolean lazyMelds, PayloadArena arena)
+    {
+        super(lazyMelds);
+        this.arena = arena;
+    }
+
+    /**
+     *
+     * pre: key > 0
+     * Insert (key,info) into the heap, copying info into the arena, and return the node.
+     * for lazy meld complexity O(1 + info.length())
+     * for non-lazy meld complexity O(log n + info.length())
+     *
+     */
+    public Node insert(int key, CharSequence info)
+    {
+        Node node = new Node(key);
+        if (info != null)
+        {
+            node.payloadRef = this.arena.store(info);
+            node.payloadLength = info.length();
+        }
+        return insertNode(node);
+    }
+
+    /**
+     *
+     * Return a zero-copy view of the payload of node, or null if it was inserted without one.
+     * the view is only valid while the node is in the heap.
+     * complexity O(1)
+     *
+     */
+    public CharSequence info(Node node)
+    {
+        if (node.payloadLength < 0) return null;
+        return this.arena.read(node.payloadRef, node.payloadLength);
+    }
+
+    /**
+     *
+     * Meld the heap with heap2, which is left empty.
+     * pre: heap2.lazyMelds = this.lazyMelds
+     * throws IllegalArgumentException if heap2 stores its payloads in another arena.
+     *
+     */
+    public void meld(ArenaPayloadHeap heap2)
+    {
+        if (heap2.arena != this.arena) throw new IllegalArgumentException("heaps must share the same arena to meld");
+        meldWith(heap2);
+    }
+
+    protected void onRemove(CompactNode node)
+    {
+        Node removed = (Node) node;
+        if (removed.payloadLength >= 0) this.arena.free(removed.payloadRef, removed.payloadLength);
+        removed.payloadLength = -1;
+    }
+
+    protected long nodeBytes()
+    {
+        return NODE_BYTES;
+    }
+
+    /**
+     * Class implementing a compact node whose payload is a reference into the arena.
+     *
+     */
+    public static final class Node extends CompactNode
+    {
+        long payloadRef;
+        int payloadLength = -1; //-1 when there is no payload
+
+        Node(int key)
+        {
+            super(key);
+        }
+
+        /**
+         * Return the payload length in chars, -1 when there is no payload.
+         */
+        public int payloadLength()
+        {
+            return this.payloadLength;
+        }
+    }
+}
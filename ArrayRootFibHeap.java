@@ -0,0 +1,386 @@
+import java.util.Arrays;
+
+/**
+ * ArrayRootFibHeap
+ *
+ * Fibonacci heap with lazy melds and cascading cuts whose root list is kept
+ * in a growable array instead of a circular linked list.
+ * Appending a root is O(1) amortized, and consolidation is a linear scan over
+ * the array, so long root lists built by lazy melds are read in memory order.
+ * Children are still kept in circular linked lists.
+ *
+ */
+public final class ArrayRootFibHeap implements HeapEngine
+{
+    private static final int INITIAL_CAPACITY = 16;
+
+    private Heap.HeapNode[] roots;
+    private int numRoots;
+    private Heap.HeapItem min;
+    private int size;
+    private int numMarkedNodes;
+    private int totalLinks;
+    private int totalCuts;
+    private int payloadCount;
+    private long payloadChars;
+
+    private static final long ENGINE_BYTES = HeapFootprint.objectBytes(2 * HeapFootprint.REFERENCE_BYTES + 7 * 4 + 8);
+
+    /**
+     *
+     * Constructor to initialize an empty heap.
+     * complexity O(1)
+     *
+     */
+    public ArrayRootFibHeap()
+    {
+        this.roots = new Heap.HeapNode[INITIAL_CAPACITY];
+    }
+
+    /**
+     *
+     * append a root at the end of the root array.
+     * complexity O(1) amortized
+     *
+     */
+    private void appendRoot(Heap.HeapNode node)
+    {
+        if (this.numRoots == this.roots.length)
+        {
+            this.roots = Arrays.copyOf(this.roots, this.roots.length * 2);
+        }
+        this.roots[this.numRoots++] = node;
+        if (this.min == null || node.item.key < this.min.key) this.min = node.item;
+    }
+
+    /**
+     *
+     * pre: key > 0
+     * Insert (key,info) into the heap and return the newly generated HeapItem.
+     * complexity O(1) amortized
+     *
+     */
+    public Heap.HeapItem insert(int key, String info)
+    {
+        Heap.HeapNode node = new Heap.HeapNode(key, info);
+        appendRoot(node);
+        this.size++;
+        countPayload(info, 1);
+        return node.item;
+    }
+
+    /**
+     *
+     * pre: item is not in a heap, item.key > 0
+     * Insert a caller constructed item, the same way as insert.
+     * complexity O(1) amortized
+     *
+     */
+    public void insertItem(Heap.HeapItem item)
+    {
+        appendRoot(new Heap.HeapNode(item));
+        this.size++;
+        countPayload(item.info, 1);
+    }
+
+    public Heap.HeapItem findMin()
+    {
+        return this.min;
+    }
+
+    /**
+     *
+     * Delete the minimal item.
+     * the children of the min are appended to the root array and the roots are consolidated.
+     * complexity O(numTrees + log n)
+     *
+     */
+    public void deleteMin()
+    {
+        if (this.min == null) return;
+        Heap.HeapNode minNode = this.min.node;
+        this.size--;
+        countPayload(this.min.info, -1);
+        this.min.node = null;
+        Heap.HeapNode child = minNode.child;
+        if (child != null)
+        {
+            Heap.HeapNode current = child;
+            do
+            {
+                Heap.HeapNode next = current.next;
+                current.parent = null;
+                if (current.lostChildren > 0)
+                {
+                    current.lostChildren = 0;
+                    this.numMarkedNodes--;
+                }
+                current.next = current;
+                current.prev = current;
+                appendRoot(current);
+                current = next;
+            } while (current != child);
+            minNode.child = null;
+        }
+        consolidate(minNode);
+    }
+
+    /**
+     *
+     * link roots of the same rank with a linear scan of the root array,
+     * dropping the removed root on the way, and rebuild the array in place.
+     * complexity O(numTrees + log n)
+     *
+     */
+    private void consolidate(Heap.HeapNode removed)
+    {
+        int bucketSize = (this.size == 0) ? 1 : (int) (1.5 * Math.ceil(Math.log(this.size) / Math.log(2)) + 2);
+        Heap.HeapNode[] bucket = new Heap.HeapNode[bucketSize];
+        Heap.HeapNode[] roots = this.roots;
+        int count = this.numRoots;
+        for (int i = 0; i < count; i++)
+        {
+            Heap.HeapNode y = roots[i];
+            roots[i] = null;
+            if (y == removed) continue;
+            while (bucket[y.rank] != null)
+            {
+                Heap.HeapNode other = bucket[y.rank];
+                bucket[y.rank] = null;
+                y = link(y, other);
+            }
+            bucket[y.rank] = y;
+        }
+        if (roots.length > INITIAL_CAPACITY && bucketSize < roots.length / 4)
+        {
+            roots = new Heap.HeapNode[Math.max(INITIAL_CAPACITY, roots.length / 2)];
+            this.roots = roots;
+        }
+        this.min = null;
+        this.numRoots = 0;
+        for (int i = 0; i < bucket.length; i++)
+        {
+            if (bucket[i] != null) appendRoot(bucket[i]);
+        }
+    }
+
+    /**
+     *
+     * link two trees of the same rank, the root will be the smaller of the two nodes.
+     * complexity O(1)
+     *
+     */
+    private Heap.HeapNode link(Heap.HeapNode x, Heap.HeapNode y)
+    {
+        Heap.HeapNode smaller = x;
+        Heap.HeapNode larger = y;
+        if (y.item.key <= x.item.key)
+        {
+            smaller = y;
+            larger = x;
+        }
+        Heap.HeapNode child = smaller.child;
+        if (child == null)
+        {
+            larger.next = larger;
+            larger.prev = larger;
+        }
+        else
+        {
+            larger.next = child;
+            larger.prev = child.prev;
+            child.prev.next = larger;
+            child.prev = larger;
+        }
+        smaller.child = larger;
+        larger.parent = smaller;
+        smaller.rank++;
+        this.totalLinks++;
+        return smaller;
+    }
+
+    /**
+     *
+     * pre: 0<=diff<=x.key
+     * Decrease the key of x by diff and fix the heap with cascading cuts.
+     * complexity O(1) amortized
+     *
+     */
+    public void decreaseKey(Heap.HeapItem x, int diff)
+    {
+        if (x == null || diff < 0 || x.node == null) return;
+        x.key -= diff;
+        if (x.node.parent != null && x.key < x.node.parent.item.key) cascadingCut(x.node);
+        if (this.min.key > x.key) this.min = x;
+    }
+
+    /**
+     *
+     * cut node to the root array, then cut every marked ancestor and mark the first unmarked one.
+     * complexity O(1) amortized
+     *
+     */
+    private void cascadingCut(Heap.HeapNode node)
+    {
+        Heap.HeapNode parent = node.parent;
+        cut(node);
+        while (parent.parent != null)
+        {
+            if (parent.lostChildren == 0)
+            {
+                parent.lostChildren = 1;
+                this.numMarkedNodes++;
+                break;
+            }
+            node = parent;
+            parent = node.parent;
+            cut(node);
+        }
+    }
+
+    /**
+     *
+     * cut node from its parent and append it to the root array.
+     * complexity O(1) amortized
+     *
+     */
+    private void cut(Heap.HeapNode node)
+    {
+        Heap.HeapNode parent = node.parent;
+        this.totalCuts++;
+        if (parent.rank > 1)
+        {
+            node.prev.next = node.next;
+            node.next.prev = node.prev;
+            if (parent.child == node) parent.child = node.next;
+        }
+        else
+        {
+            parent.child = null;
+        }
+        parent.rank--;
+        if (node.lostChildren > 0)
+        {
+            node.lostChildren = 0;
+            this.numMarkedNodes--;
+        }
+        node.parent = null;
+        node.next = node;
+        node.prev = node;
+        appendRoot(node);
+    }
+
+    /**
+     *
+     * Delete x from the heap.
+     * complexity O(numTrees + log n)
+     *
+     */
+    public void delete(Heap.HeapItem x)
+    {
+        if (x == null || x.node == null) return;
+        //x is lowered below every key and cut to the root array, x.key + 1 would overflow for Integer.MAX_VALUE
+        x.key = Integer.MIN_VALUE;
+        if (x.node.parent != null) cascadingCut(x.node);
+        this.min = x;
+        deleteMin();
+    }
+
+    /**
+     *
+     * Meld the heap with heap2 by appending the shorter root array to the longer one.
+     * complexity O(min(numTrees, heap2.numTrees)) amortized
+     *
+     */
+    public void meld(ArrayRootFibHeap heap2)
+    {
+        if (heap2.numRoots > this.numRoots)
+        {
+            Heap.HeapNode[] tempRoots = this.roots;
+            int tempCount = this.numRoots;
+            this.roots = heap2.roots;
+            this.numRoots = heap2.numRoots;
+            heap2.roots = tempRoots;
+            heap2.numRoots = tempCount;
+        }
+        if (this.min == null || (heap2.min != null && heap2.min.key < this.min.key)) this.min = heap2.min;
+        int needed = this.numRoots + heap2.numRoots;
+        if (needed > this.roots.length)
+        {
+            this.roots = Arrays.copyOf(this.roots, Math.max(needed, this.roots.length * 2));
+        }
+        System.arraycopy(heap2.roots, 0, this.roots, this.numRoots, heap2.numRoots);
+        this.numRoots = needed;
+        this.size += heap2.size;
+        this.numMarkedNodes += heap2.numMarkedNodes;
+        this.totalLinks += heap2.totalLinks;
+        this.totalCuts += heap2.totalCuts;
+        this.payloadCount += heap2.payloadCount;
+        this.payloadChars += heap2.payloadChars;
+    }
+
+    /**
+     *
+     * add (sign = 1) or remove (sign = -1) a payload from the footprint counters.
+     * complexity O(1)
+     *
+     */
+    private void countPayload(String info, int sign)
+    {
+        if (info == null) return;
+        this.payloadCount += sign;
+        this.payloadChars += sign * info.length();
+    }
+
+    public long estimatedBytes()
+    {
+        return footprint().total();
+    }
+
+    /**
+     *
+     * Return the estimated memory use of the heap, computed from maintained counters.
+     * the root array is reported as overhead since it stays allocated between consolidations.
+     * complexity O(1)
+     *
+     */
+    public HeapFootprint footprint()
+    {
+        return new HeapFootprint(
+            this.size * Heap.NODE_BYTES,
+            this.size * Heap.ITEM_BYTES,
+            HeapFootprint.stringBytes(this.payloadCount, this.payloadChars),
+            HeapFootprint.consolidationBufferBytes(this.size),
+            ENGINE_BYTES + HeapFootprint.referenceArrayBytes(this.roots.length));
+    }
+
+    public int size()
+    {
+        return this.size;
+    }
+
+    public int numTrees()
+    {
+        return this.numRoots;
+    }
+
+    public int numMarkedNodes()
+    {
+        return this.numMarkedNodes;
+    }
+
+    public int totalLinks()
+    {
+        return this.totalLinks;
+    }
+
+    public int totalCuts()
+    {
+        return this.totalCuts;
+    }
+
+    public int totalHeapifyCosts()
+    {
+        return 0;
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * CompactFibHeap
+ *
+ * Cut based heap with String payloads where every element is a single Node object.
+ * Compared to Heap, an element pays for one object header instead of two and
+ * no HeapNode/HeapItem cross pointers.
+ *
+ */
+public final class CompactFibHeap extends AbstractStringCompactHeap<CompactFibHeap.Node>
+{
+    private static final long NODE_BYTES = HeapFootprint.objectBytes(STRING_NODE_FIELD_BYTES);
+
+    /**
+     *
+     * Constructor to initialize an empty heap, with or without lazy melds.
+     * complexity O(1)
+     *
+     */
+    public CompactFibHeap(boolean lazyMelds)
+    {
+        super(lazyMelds);
+    }
+
+    /**
+     *
+     * pre: key > 0
+     * Insert (key,info) into the heap and return the node, which is also the handle.
+     * for lazy meld complexity O(1)
+     * for non-lazy meld complexity O(log n)
+     *
+     */
+    public Node insert(int key, String info)
+    {
+        return insertPayloadNode(new Node(key, info));
+    }
+
+    /**
+     *
+     * Meld the heap with heap2, which is left empty.
+     * pre: heap2.lazyMelds = this.lazyMelds
+     *
+     */
+    public void meld(CompactFibHeap heap2)
+    {
+        meldPayloadsWith(heap2);
+    }
+
+    protected long nodeBytes()
+    {
+        return NODE_BYTES;
+    }
+
+    /**
+     * Class implementing a compact node with a String payload.
+     *
+     */
+    public static final class Node extends StringCompactNode
+    {
+        public Node(int key, String info)
+        {
+            super(key, info);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ * CompactNode
+ *
+ * A heap node that is also its own handle, used by the cut based compact engines.
+ * There is no separate item object, the key is read directly from the node,
+ * and the rank and the mark share a single int: the rank in the low 31 bits
+ * and the mark in the sign bit.
+ *
+ */
+public class CompactNode
+{
+    static final int MARK_BIT = 0x80000000;
+    static final int RANK_MASK = 0x7fffffff;
+
+    public int key;
+    CompactNode child;
+    CompactNode next;
+    CompactNode prev;
+    CompactNode parent;
+    int rankAndMark;
+
+    public CompactNode(int key)
+    {
+        this.key = key;
+        this.next = this;
+        this.prev = this;
+    }
+
+    /**
+     *
+     * Return the number of children of the node.
+     * complexity O(1)
+     *
+     */
+    public final int rank()
+    {
+        return this.rankAndMark & RANK_MASK;
+    }
+
+    /**
+     *
+     * Return whether the node lost a child since it was linked.
+     * complexity O(1)
+     *
+     */
+    public final boolean isMarked()
+    {
+        return this.rankAndMark < 0;
+    }
+
+    /**
+     *
+     * Return whether the node is still in a heap.
+     * complexity O(1)
+     *
+     */
+    public final boolean isLive()
+    {
+        return this.next != null;
+    }
+}
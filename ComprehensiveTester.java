@@ -1,4 +1,5 @@
 import java.util.*;
+import java.util.stream.Collectors;
 
 public class ComprehensiveTester {
 
@@ -28,6 +29,33 @@ public class ComprehensiveTester {
             // 4. Randomized Stress Test
             testStressRandomized(); 
 
+            // 5. Engine Policies
+            testSemiLazyMeldThreshold();
+            testMarkTolerance();
+            testSpecializedEnginesMatchHeap();
+            testArrayRootFibHeap();
+            testCompactFibHeap();
+            testNodePool();
+            testFootprint();
+            testPrimitivePayloadHeaps();
+            testArenaPayloadHeap();
+            testIdIndex();
+            testMultisetHeap();
+            testKeyOffset();
+            testFifoHeap();
+            testCrossModeMeld();
+            testExtractBelow();
+            testHeapCursor();
+            testHeapStream();
+            testHeapCollectors();
+            testPrunedQueries();
+            testTopK();
+            testGroupedTopK();
+            testSlidingWindowMin();
+            testRunningQuantile();
+            testDijkstra();
+            testPrim();
+
         } catch (Exception e) {
             e.printStackTrace();
             System.out.println("CRITICAL: Test runner crashed with exception: " + e.getMessage());
@@ -309,8 +337,1495 @@ public class ComprehensiveTester {
         }
     }
 
-    private static void runStressTest(boolean lazyMelds, boolean lazyDecrease) {
+    /**
+     * Test 8: Semi-lazy melds keep the root list below factor * log2(size)
+     */
+    private static void testSemiLazyMeldThreshold() {
+        System.out.println("\n--- Test 8: Semi-Lazy Meld Threshold ---");
+        try {
+            Heap heap = new Heap(true, true, 2.0);
+            Heap lazy = new Heap(true, true);
+            for (int i = 1; i <= 1000; i++) {
+                heap.insert(i, "v" + i);
+                lazy.insert(i, "v" + i);
+                int log2 = 32 - Integer.numberOfLeadingZeros(heap.size());
+                assertTrue(heap.numTrees() <= 2.0 * log2, "numTrees " + heap.numTrees() + " above threshold at size " + heap.size());
+            }
+            assertTrue(lazy.numTrees() == 1000, "Fully lazy heap should keep every insert as a root");
+            validateHeapStructure(heap);
+
+            for (int i = 1; i <= 1000; i++) {
+                assertTrue(heap.findMin().key == i, "Min mismatch: Exp " + i + " Got " + heap.findMin().key);
+                heap.deleteMin();
+            }
+            assertTrue(heap.size() == 0, "Heap should be empty");
+            //below 1.5 a consolidated root list already exceeds the threshold
+            for (double factor : new double[] {-1, 0.5, 1.49, Double.NaN}) {
+                try {
+                    new Heap(true, true, factor);
+                    throw new RuntimeException("consolidationFactor " + factor + " should be rejected");
+                } catch (IllegalArgumentException expected) {
+                    //expected
+                }
+            }
+            new Heap(true, true, 1.5);
+            pass("Semi-Lazy Meld Threshold");
+        } catch (Exception e) {
+            fail("Semi-Lazy Meld Threshold", e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Test 9: k-mark cut policy keeps numMarkedNodes exact for every tolerance
+     */
+    private static void testMarkTolerance() {
+        System.out.println("\n--- Test 9: Mark Tolerance ---");
+        try {
+            int previousCuts = Integer.MAX_VALUE;
+            for (int k = 1; k <= 4; k++) {
+                Heap heap = new Heap(true, true, 0, k);
+                PriorityQueue<Integer> pq = new PriorityQueue<>();
+                List<Heap.HeapItem> items = new ArrayList<>();
+                Random rand = new Random(99);
+                for (int i = 0; i < 2000; i++) {
+                    int val = rand.nextInt(100000) + 1000;
+                    items.add(heap.insert(val, "v"));
+                    pq.add(val);
+                }
+                heap.deleteMin();
+                removeFromList(items, pq.poll());
+
+                for (int i = 0; i < 3000; i++) {
+                    Heap.HeapItem item = items.get(rand.nextInt(items.size()));
+                    if (item.key > 1) {
+                        int diff = rand.nextInt(item.key - 1) + 1;
+                        pq.remove(item.key);
+                        pq.add(item.key - diff);
+                        heap.decreaseKey(item, diff);
+                    }
+                    if (i % 100 == 0) {
+                        int expected = pq.poll();
+                        assertTrue(heap.findMin().key == expected, "k=" + k + " min mismatch: Exp " + expected + " Got " + heap.findMin().key);
+                        heap.deleteMin();
+                        removeFromList(items, expected);
+                    }
+                }
+                validateHeapStructure(heap);
+                int[] marks = countMarks(heap, k);
+                assertTrue(marks[0] == heap.numMarkedNodes(), "k=" + k + " numMarkedNodes " + heap.numMarkedNodes() + " != actual " + marks[0]);
+                assertTrue(marks[1] == 0, "k=" + k + " found " + marks[1] + " nodes that reached the tolerance without being cut");
+                assertTrue(heap.totalCuts() <= previousCuts, "k=" + k + " should not cut more than k=" + (k - 1));
+                previousCuts = heap.totalCuts();
+            }
+            //with a large tolerance a tree keeps its rank after losing most of its nodes
+            for (int k : new int[] {8, 100}) {
+                Heap heap = new Heap(true, true, 0, k);
+                for (int i = 1; i <= 4097; i++) heap.insert(i, "v");
+                heap.deleteMin();
+                assertTrue(heap.numTrees() == 1 && heap.findMin().node.rank == 12, "k=" + k + " should hold a single B_12");
+                List<Integer> left = new ArrayList<>();
+                for (Heap.HeapItem item : itemsAtDepth(heap, 0)) left.add(item.key);
+                for (Heap.HeapItem item : itemsAtDepth(heap, 2)) {
+                    left.remove(Integer.valueOf(item.key));
+                    heap.delete(item);
+                }
+                assertTrue(heap.size() == 13, "k=" + k + " only the root and its children should be left");
+                heap.insert(1, "v");
+                heap.deleteMin();
+                validateHeapStructure(heap);
+                Collections.sort(left);
+                for (int expected : left) {
+                    assertTrue(heap.findMin().key == expected, "k=" + k + " min mismatch: Exp " + expected + " Got " + heap.findMin().key);
+                    heap.deleteMin();
+                }
+                assertTrue(heap.size() == 0, "k=" + k + " heap should be empty");
+            }
+            pass("Mark Tolerance");
+        } catch (Exception e) {
+            fail("Mark Tolerance", e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * returns the items at depth >= minDepth, deepest first, where roots are at depth 0
+     */
+    private static List<Heap.HeapItem> itemsAtDepth(Heap heap, int minDepth) {
+        List<List<Heap.HeapItem>> levels = new ArrayList<>();
+        if (heap.findMin() != null) collectLevels(heap.findMin().node, 0, levels);
+        List<Heap.HeapItem> items = new ArrayList<>();
+        for (int depth = levels.size() - 1; depth >= minDepth; depth--) items.addAll(levels.get(depth));
+        return items;
+    }
+
+    private static void collectLevels(Heap.HeapNode first, int depth, List<List<Heap.HeapItem>> levels) {
+        if (first == null) return;
+        if (levels.size() == depth) levels.add(new ArrayList<>());
+        Heap.HeapNode node = first;
+        do {
+            levels.get(depth).add(node.item);
+            collectLevels(node.child, depth + 1, levels);
+            node = node.next;
+        } while (node != first);
+    }
+
+    /**
+     * checks that no root is above the classic rank bound, and that every tree is binomial if binomial is set
+     */
+    private static void assertRankBound(Heap heap, boolean binomial, String name) {
+        if (heap.size() == 0) return;
+        int rankBound = (int) (1.5 * Math.ceil(Math.log(heap.size()) / Math.log(2)) + 2);
+        Heap.HeapNode root = heap.findMin().node;
+        do {
+            assertTrue(root.rank < rankBound, "Rank " + root.rank + " above the bound after " + name);
+            assertTrue(!binomial || binomialSize(root) == 1 << root.rank, "Binomial shape broken after " + name);
+            root = root.next;
+        } while (root != heap.findMin().node);
+    }
+
+    /**
+     * returns the size of the tree rooted at node if it is a binomial tree, -1 otherwise
+     */
+    private static int binomialSize(Heap.HeapNode node) {
+        int size = 1;
+        int[] childRanks = new int[node.rank];
+        Heap.HeapNode child = node.child;
+        for (int i = 0; i < node.rank; i++) {
+            int childSize = binomialSize(child);
+            if (childSize != 1 << child.rank) return -1;
+            childRanks[i] = child.rank;
+            size += childSize;
+            child = child.next;
+        }
+        Arrays.sort(childRanks);
+        for (int i = 0; i < childRanks.length; i++) {
+            if (childRanks[i] != i) return -1;
+        }
+        return size;
+    }
+
+    /**
+     * returns {marked non-root nodes, non-root nodes at or above the tolerance}
+     */
+    private static int[] countMarks(Heap heap, int k) {
+        int[] counts = new int[2];
+        if (heap.findMin() == null) return counts;
+        Heap.HeapNode root = heap.findMin().node;
+        do {
+            countMarks(root.child, k, counts);
+            root = root.next;
+        } while (root != heap.findMin().node);
+        return counts;
+    }
+
+    private static void countMarks(Heap.HeapNode first, int k, int[] counts) {
+        if (first == null) return;
+        Heap.HeapNode node = first;
+        do {
+            if (node.lostChildren > 0) counts[0]++;
+            if (node.lostChildren >= k) counts[1]++;
+            countMarks(node.child, k, counts);
+            node = node.next;
+        } while (node != first);
+    }
+
+    /**
+     * Test 10: Specialized engines behave exactly like the flag based Heap of their mode
+     */
+    private static void testSpecializedEnginesMatchHeap() {
+        System.out.println("\n--- Test 10: Specialized Engines ---");
+        try {
+            compareWithHeap(new LazyFibHeap(), true, true);
+            compareWithHeap(new EagerFibHeap(), false, true);
+            compareWithHeap(new LazyBinomialHeap(), true, false);
+            compareWithHeap(new EagerBinomialHeap(), false, false);
+            //delete must not compute x.key + 1, which overflows for Integer.MAX_VALUE
+            for (HeapEngine engine : new HeapEngine[] {new LazyFibHeap(), new EagerFibHeap(), new LazyBinomialHeap(),
+                    new EagerBinomialHeap(), new ArrayRootFibHeap()}) {
+                String mode = engine.getClass().getName();
+                engine.insert(1, "v");
+                Heap.HeapItem max = engine.insert(Integer.MAX_VALUE, "max");
+                for (int i = 2; i <= 64; i++) engine.insert(5 * i, "v");
+                engine.deleteMin();
+                engine.delete(max);
+                assertTrue(max.node == null && engine.size() == 63, mode + " should delete the Integer.MAX_VALUE item");
+                for (int i = 2; i <= 64; i++) {
+                    assertTrue(engine.findMin().key == 5 * i, mode + " min mismatch: Exp " + 5 * i + " Got " + engine.findMin().key);
+                    engine.deleteMin();
+                }
+            }
+            pass("Specialized Engines");
+        } catch (Exception e) {
+            fail("Specialized Engines", e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private static void compareWithHeap(HeapEngine engine, boolean lazyMelds, boolean lazyDecrease) {
+        String mode = engine.getClass().getName();
         Heap heap = new Heap(lazyMelds, lazyDecrease);
+        List<Heap.HeapItem> heapItems = new ArrayList<>();
+        List<Heap.HeapItem> engineItems = new ArrayList<>();
+        Random rand = new Random(7);
+        for (int i = 0; i < 4000; i++) {
+            int op = rand.nextInt(100);
+            if (op < 45 || heapItems.isEmpty()) {
+                int val = rand.nextInt(5000) + 1;
+                heapItems.add(heap.insert(val, "v"));
+                engineItems.add(engine.insert(val, "v"));
+            } else if (op < 60) {
+                Heap.HeapItem min = heap.findMin();
+                int idx = heapItems.indexOf(min);
+                assertTrue(engine.findMin() == engineItems.get(idx), mode + " deleteMin picked a different item");
+                heap.deleteMin();
+                engine.deleteMin();
+                heapItems.remove(idx);
+                engineItems.remove(idx);
+            } else if (op < 90) {
+                int idx = rand.nextInt(heapItems.size());
+                if (heapItems.get(idx).key > 1) {
+                    int diff = rand.nextInt(heapItems.get(idx).key - 1) + 1;
+                    heap.decreaseKey(heapItems.get(idx), diff);
+                    engine.decreaseKey(engineItems.get(idx), diff);
+                }
+            } else {
+                int idx = rand.nextInt(heapItems.size());
+                heap.delete(heapItems.remove(idx));
+                engine.delete(engineItems.remove(idx));
+            }
+            assertTrue(engine.size() == heap.size(), mode + " size mismatch");
+            assertTrue(engine.numTrees() == heap.numTrees(), mode + " numTrees " + engine.numTrees() + " != " + heap.numTrees());
+            assertTrue(engine.numMarkedNodes() == heap.numMarkedNodes(), mode + " numMarkedNodes mismatch");
+            assertTrue(engine.totalLinks() == heap.totalLinks(), mode + " totalLinks mismatch");
+            assertTrue(engine.totalCuts() == heap.totalCuts(), mode + " totalCuts mismatch");
+            assertTrue(engine.totalHeapifyCosts() == heap.totalHeapifyCosts(), mode + " totalHeapifyCosts mismatch");
+            if (heap.findMin() != null) {
+                assertTrue(engine.findMin().key == heap.findMin().key, mode + " min mismatch");
+            }
+        }
+    }
+
+    /**
+     * Test 11: Root array engine against a PriorityQueue oracle
+     */
+    private static void testArrayRootFibHeap() {
+        System.out.println("\n--- Test 11: Array Root Fibonacci Heap ---");
+        try {
+            runEngineOracle(new ArrayRootFibHeap());
+            ArrayRootFibHeap a = new ArrayRootFibHeap();
+            ArrayRootFibHeap b = new ArrayRootFibHeap();
+            for (int i = 1; i <= 100; i++) a.insert(2 * i, "a");
+            for (int i = 1; i <= 300; i++) b.insert(2 * i + 1, "b");
+            a.meld(b);
+            assertTrue(a.size() == 400 && a.numTrees() == 400, "Meld should append every root");
+            for (int expected : new int[] {2, 3, 4, 5}) {
+                assertTrue(a.findMin().key == expected, "Min mismatch: Exp " + expected + " Got " + a.findMin().key);
+                a.deleteMin();
+            }
+            assertTrue(a.numTrees() <= 9, "Consolidation should leave at most log n roots, got " + a.numTrees());
+            pass("Array Root Fibonacci Heap");
+        } catch (Exception e) {
+            fail("Array Root Fibonacci Heap", e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private static void runEngineOracle(HeapEngine heap) {
+        String name = heap.getClass().getName();
+        PriorityQueue<Integer> pq = new PriorityQueue<>();
+        List<Heap.HeapItem> liveItems = new ArrayList<>();
+        Random rand = new Random(2024);
+        for (int i = 0; i < 5000; i++) {
+            int op = rand.nextInt(100);
+            if (op < 40 || liveItems.isEmpty()) {
+                int val = rand.nextInt(100000) + 1;
+                pq.add(val);
+                liveItems.add(heap.insert(val, "Val" + val));
+            } else if (op < 60) {
+                int expected = pq.poll();
+                assertTrue(heap.findMin().key == expected, name + " min mismatch: Exp " + expected + " Got " + heap.findMin().key);
+                heap.deleteMin();
+                removeFromList(liveItems, expected);
+            } else if (op < 90) {
+                Heap.HeapItem item = liveItems.get(rand.nextInt(liveItems.size()));
+                if (item.key > 1) {
+                    int diff = rand.nextInt(item.key - 1) + 1;
+                    pq.remove(item.key);
+                    pq.add(item.key - diff);
+                    heap.decreaseKey(item, diff);
+                }
+            } else {
+                Heap.HeapItem item = liveItems.remove(rand.nextInt(liveItems.size()));
+                pq.remove(item.key);
+                heap.delete(item);
+            }
+            assertTrue(heap.size() == pq.size(), name + " size mismatch");
+        }
+        while (!pq.isEmpty()) {
+            int expected = pq.poll();
+            assertTrue(heap.findMin().key == expected, name + " drain mismatch: Exp " + expected + " Got " + heap.findMin().key);
+            heap.deleteMin();
+        }
+        assertTrue(heap.findMin() == null && heap.numMarkedNodes() == 0, name + " should be empty after draining");
+    }
+
+    /**
+     * Test 12: Compact single object nodes against a PriorityQueue oracle
+     */
+    private static void testCompactFibHeap() {
+        System.out.println("\n--- Test 12: Compact Fibonacci Heap ---");
+        try {
+            for (boolean lazyMelds : new boolean[] {true, false}) {
+                CompactFibHeap heap = new CompactFibHeap(lazyMelds);
+                PriorityQueue<Integer> pq = new PriorityQueue<>();
+                List<CompactFibHeap.Node> live = new ArrayList<>();
+                Random rand = new Random(31);
+                for (int i = 0; i < 5000; i++) {
+                    int op = rand.nextInt(100);
+                    if (op < 40 || live.isEmpty()) {
+                        int val = rand.nextInt(100000) + 1;
+                        pq.add(val);
+                        live.add(heap.insert(val, "Val" + val));
+                    } else if (op < 60) {
+                        int expected = pq.poll();
+                        CompactFibHeap.Node min = heap.findMin();
+                        assertTrue(min.key == expected, "Min mismatch: Exp " + expected + " Got " + min.key);
+                        assertTrue(min.info.startsWith("Val") && live.contains(min), "Min should be a live node with its payload");
+                        heap.deleteMin();
+                        assertTrue(!min.isLive(), "Deleted node should not be live");
+                        live.remove(min);
+                    } else if (op < 90) {
+                        CompactFibHeap.Node node = live.get(rand.nextInt(live.size()));
+                        if (node.key > 1) {
+                            int diff = rand.nextInt(node.key - 1) + 1;
+                            pq.remove(node.key);
+                            pq.add(node.key - diff);
+                            heap.decreaseKey(node, diff);
+                        }
+                    } else {
+                        CompactFibHeap.Node node = live.remove(rand.nextInt(live.size()));
+                        pq.remove(node.key);
+                        heap.delete(node);
+                    }
+                    assertTrue(heap.size() == pq.size(), "Size mismatch");
+                }
+                assertTrue(lazyMelds || heap.numTrees() <= 32, "Non-lazy melds should keep few trees");
+            }
+            pass("Compact Fibonacci Heap");
+        } catch (Exception e) {
+            fail("Compact Fibonacci Heap", e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Test 13: Pooled nodes are recycled and stale handles are detected
+     */
+    private static void testNodePool() {
+        System.out.println("\n--- Test 13: Node Pool ---");
+        try {
+            HeapNodePool pool = new HeapNodePool();
+            Heap heap = new Heap(true, true, pool);
+            Heap.HeapItem first = heap.insert(10, "ten");
+            int generation = Heap.generationOf(first);
+            heap.insert(20, "twenty");
+            heap.deleteMin();
+            assertTrue(!Heap.isLive(first, generation), "Deleted item should not be live");
+            assertTrue(pool.freeCount() == 1, "Deleted node should be in the pool");
+
+            Heap.HeapItem reused = heap.insert(30, "thirty");
+            assertTrue(reused == first, "Insert should reuse the pooled item");
+            assertTrue(pool.freeCount() == 0 && pool.allocatedCount() == 2, "Pool should not allocate while it has free nodes");
+            assertTrue(!Heap.isLive(first, generation), "Recycled item should be detected as stale");
+            boolean threw = false;
+            try {
+                heap.decreaseKey(first, generation, 5);
+            } catch (IllegalStateException e) {
+                threw = true;
+            }
+            assertTrue(threw, "decreaseKey with a stale generation should throw");
+            assertTrue(reused.key == 30, "Stale decreaseKey must not touch the new element");
+
+            heap.delete(reused, Heap.generationOf(reused));
+            assertTrue(heap.size() == 1 && heap.findMin().key == 20, "Delete with a live handle should work");
+
+            heap.deleteMin();
+            runStressTest(heap);
+            while (heap.size() > 0) heap.deleteMin();
+            assertTrue(pool.freeCount() > 0, "Drained heap should leave nodes in the pool");
+            pool.trim();
+            assertTrue(pool.freeCount() == 0, "trim should empty the pool");
+            pass("Node Pool");
+        } catch (Exception e) {
+            fail("Node Pool", e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Test 14: Footprint accounting follows inserts, deletes and melds on every engine
+     */
+    private static void testFootprint() {
+        System.out.println("\n--- Test 14: Footprint Accounting ---");
+        try {
+            Heap heap = new Heap(true, true);
+            long empty = heap.estimatedBytes();
+            assertTrue(heap.footprint().nodeBytes == 0 && heap.footprint().payloadBytes == 0, "Empty heap should hold no nodes or payloads");
+            for (int i = 1; i <= 100; i++) heap.insert(i, "payload" + i);
+            HeapFootprint full = heap.footprint();
+            assertTrue(full.nodeBytes == 100 * 40 && full.itemBytes == 100 * 24, "Unexpected node/item bytes " + full);
+            assertTrue(full.payloadBytes > 100 * (24 + 16 + 7), "Payload strings should be counted " + full);
+            Heap other = new Heap(true, true);
+            for (int i = 1; i <= 50; i++) other.insert(1000 + i, null);
+            heap.meld(other);
+            assertTrue(heap.footprint().payloadBytes == full.payloadBytes, "Null payloads should not add payload bytes");
+            assertTrue(heap.footprint().nodeBytes == 150 * 40, "Meld should add the nodes of the other heap");
+            while (heap.size() > 0) heap.deleteMin();
+            assertTrue(heap.estimatedBytes() == empty, "Drained heap should be back to its empty footprint");
+
+            FootprintAware[] engines = {new LazyFibHeap(), new ArrayRootFibHeap(), new CompactFibHeap(true)};
+            for (FootprintAware engine : engines) {
+                long before = engine.estimatedBytes();
+                for (int i = 1; i <= 100; i++) {
+                    if (engine instanceof HeapEngine) ((HeapEngine) engine).insert(i, "payload" + i);
+                    else ((CompactFibHeap) engine).insert(i, "payload" + i);
+                }
+                assertTrue(engine.estimatedBytes() > before, engine.getClass().getName() + " should grow");
+                for (int i = 1; i <= 100; i++) {
+                    if (engine instanceof HeapEngine) ((HeapEngine) engine).deleteMin();
+                    else ((CompactFibHeap) engine).deleteMin();
+                }
+                assertTrue(engine.footprint().nodeBytes == 0 && engine.footprint().payloadBytes == 0, engine.getClass().getName() + " should be empty");
+            }
+            assertTrue(new CompactFibHeap(true).footprint().total() > 0, "Fixed overhead should be reported");
+            pass("Footprint Accounting");
+        } catch (Exception e) {
+            fail("Footprint Accounting", e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Test 15: Inline int/long payloads and key only nodes
+     */
+    private static void testPrimitivePayloadHeaps() {
+        System.out.println("\n--- Test 15: Primitive Payload Heaps ---");
+        try {
+            IntPayloadHeap ints = new IntPayloadHeap(true);
+            LongPayloadHeap longs = new LongPayloadHeap(false);
+            KeyOnlyHeap keys = new KeyOnlyHeap(true);
+            List<IntPayloadHeap.Node> intNodes = new ArrayList<>();
+            Random rand = new Random(5);
+            for (int i = 0; i < 1000; i++) {
+                int key = rand.nextInt(100000) + 10;
+                intNodes.add(ints.insert(key, i));
+                longs.insert(key, (long) key << 32 | i);
+                keys.insert(key);
+            }
+            IntPayloadHeap.Node target = intNodes.get(500);
+            ints.decreaseKey(target, target.key - 1);
+            assertTrue(ints.findMin() == target && ints.findMin().payload == 500, "Decreased node should be the min with its payload");
+            ints.delete(target);
+
+            int previous = Integer.MIN_VALUE;
+            while (longs.size() > 0) {
+                LongPayloadHeap.Node min = longs.findMin();
+                assertTrue(min.key >= previous, "Keys should come out in order");
+                assertTrue((int) (min.payload >>> 32) == min.key, "Long payload should stay with its key");
+                assertTrue(keys.findMin().key == min.key, "Key only heap should agree");
+                previous = min.key;
+                longs.deleteMin();
+                keys.deleteMin();
+            }
+            assertTrue(ints.size() == 999 && keys.size() == 0, "Unexpected sizes");
+            assertTrue(keys.footprint().nodeBytes == 0, "Empty key only heap should hold no nodes");
+            ints.insert(1, 7);
+            long intNode = ints.footprint().nodeBytes / ints.size();
+            assertTrue(intNode == 40 && ints.footprint().payloadBytes == 0, "Int payload should be inline, got " + ints.footprint());
+            pass("Primitive Payload Heaps");
+        } catch (Exception e) {
+            fail("Primitive Payload Heaps", e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Test 16: Payloads copied off heap are read back and reclaimed in bulk
+     */
+    private static void testArenaPayloadHeap() {
+        System.out.println("\n--- Test 16: Arena Payload Heap ---");
+        try {
+            PayloadArena arena = new PayloadArena(256);
+            ArenaPayloadHeap heap = new ArenaPayloadHeap(true, arena);
+            for (int i = 1; i <= 200; i++) {
+                heap.insert(i, new StringBuilder("item-").append(i));
+            }
+            heap.insert(1000, null);
+            assertTrue(arena.reservedBytes() > 256, "Payloads should span several chunks");
+            assertTrue(heap.footprint().payloadBytes == 0, "Off heap payloads should not count as heap payload bytes");
+            for (int i = 1; i <= 200; i++) {
+                ArenaPayloadHeap.Node min = heap.findMin();
+                assertTrue(min.key == i, "Min mismatch: Exp " + i + " Got " + min.key);
+                assertTrue(heap.info(min).toString().equals("item-" + i), "Payload mismatch: " + heap.info(min));
+                heap.deleteMin();
+            }
+            assertTrue(heap.info(heap.findMin()) == null, "Null payload should read back as null");
+            assertTrue(arena.liveBytes() == 0, "Deleted payloads should be freed");
+
+            long reserved = arena.reservedBytes();
+            ArenaPayloadHeap second = new ArenaPayloadHeap(true, arena);
+            for (int i = 1; i <= 200; i++) second.insert(i, "meld-" + i);
+            assertTrue(arena.reservedBytes() == reserved, "Reclaimed chunks should be reused");
+            heap.meld(second);
+            assertTrue(heap.size() == 201, "Meld should move every node");
+
+            //an empty payload freed from an already empty chunk must not reclaim it twice
+            PayloadArena small = new PayloadArena(8);
+            ArenaPayloadHeap third = new ArenaPayloadHeap(true, small);
+            ArenaPayloadHeap.Node a = third.insert(1, "abcd");
+            ArenaPayloadHeap.Node empty = third.insert(2, "");
+            third.insert(3, "wxyz");
+            third.delete(a);
+            third.delete(empty);
+            ArenaPayloadHeap.Node p = third.insert(4, "PPPP");
+            ArenaPayloadHeap.Node q = third.insert(5, "QQQQ");
+            assertTrue(third.info(p).toString().equals("PPPP") && third.info(q).toString().equals("QQQQ"),
+                "Reclaimed chunk handed out twice: " + third.info(p) + " " + third.info(q));
+            long ref = small.store("abcd");
+            small.store("efgh");
+            small.free(ref, 4);
+            small.free(ref, 4);
+            small.free(ref, 0);
+            long r1 = small.store("1111");
+            long r2 = small.store("2222");
+            assertTrue(small.read(r1, 4).toString().equals("1111") && small.read(r2, 4).toString().equals("2222"),
+                "Repeated frees should not reclaim a chunk twice");
+            pass("Arena Payload Heap");
+        } catch (Exception e) {
+            fail("Arena Payload Heap", e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Test 17: Id index stays consistent through heapifyUp, deleteMin and meld
+     */
+    private static void testIdIndex() {
+        System.out.println("\n--- Test 17: Id Index ---");
+        try {
+            for (boolean lazyDecrease : new boolean[] {false, true}) {
+                Heap heap = new Heap(false, lazyDecrease);
+                Map<Long, Integer> oracle = new HashMap<>();
+                Random rand = new Random(17);
+                for (long id = 0; id < 2000; id++) {
+                    int key = rand.nextInt(100000) + 1000;
+                    heap.insert(key, null, id * 7919);
+                    oracle.put(id * 7919, key);
+                }
+                for (int i = 0; i < 3000; i++) {
+                    long id = (long) rand.nextInt(2000) * 7919;
+                    int op = rand.nextInt(10);
+                    if (!oracle.containsKey(id)) {
+                        assertTrue(!heap.containsId(id) && !heap.decreaseKeyById(id, 1), "Removed id should not be found");
+                    } else if (op < 7) {
+                        int diff = rand.nextInt(500);
+                        assertTrue(heap.decreaseKeyById(id, diff), "decreaseKeyById should find " + id);
+                        oracle.put(id, oracle.get(id) - diff);
+                    } else if (op < 9) {
+                        assertTrue(heap.deleteById(id), "deleteById should find " + id);
+                        oracle.remove(id);
+                    } else {
+                        Heap.IndexedItem min = (Heap.IndexedItem) heap.findMin();
+                        assertTrue(oracle.get(min.id) == min.key, "Min item should carry its id");
+                        heap.deleteMin();
+                        oracle.remove(min.id);
+                        assertTrue(!heap.containsId(min.id), "deleteMin should drop the id");
+                    }
+                }
+                for (Map.Entry<Long, Integer> entry : oracle.entrySet()) {
+                    Heap.HeapItem item = heap.findById(entry.getKey());
+                    assertTrue(item != null && item.key == entry.getValue() && item.node.item == item, "Index out of sync for id " + entry.getKey());
+                }
+                assertTrue(heap.size() == oracle.size(), "Size mismatch");
+
+                Heap other = new Heap(false, lazyDecrease);
+                other.insert(5, "five", -1);
+                heap.meld(other);
+                assertTrue(heap.containsId(-1) && heap.findById(-1).key == 5, "Meld should move the ids of the other heap");
+                assertTrue(!other.containsId(-1), "Melded heap should no longer index the moved id");
+            }
+            boolean threw = false;
+            Heap heap = new Heap(true, true);
+            heap.insert(1, null, 3);
+            try {
+                heap.insert(2, null, 3);
+            } catch (IllegalArgumentException e) {
+                threw = true;
+            }
+            assertTrue(threw, "Duplicate id should be rejected");
+            pass("Id Index");
+        } catch (Exception e) {
+            fail("Id Index", e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Test 18: Equal keys share one node in a multiset heap
+     */
+    private static void testMultisetHeap() {
+        System.out.println("\n--- Test 18: Multiset Heap ---");
+        try {
+            MultisetHeap multiset = new MultisetHeap(true, true);
+            Heap plain = new Heap(true, true);
+            PriorityQueue<Integer> pq = new PriorityQueue<>();
+            Random rand = new Random(36);
+            for (int i = 0; i < 20000; i++) {
+                int key = (rand.nextInt(16) + 1) * 10;
+                multiset.insert(key, "p" + i);
+                plain.insert(key, "p" + i);
+                pq.add(key);
+                if (i % 10 == 9) {
+                    int expected = pq.poll();
+                    assertTrue(multiset.findMinKey() == expected, "Min mismatch: Exp " + expected + " Got " + multiset.findMinKey());
+                    assertTrue(multiset.findMinInfo() != null, "Min payload should be available");
+                    multiset.deleteMin();
+                    plain.deleteMin();
+                }
+            }
+            assertTrue(multiset.size() == pq.size(), "Size mismatch");
+            assertTrue(multiset.distinctKeys() <= 16, "Nodes should follow distinct keys, got " + multiset.distinctKeys());
+            assertTrue(multiset.totalLinks() * 10 < plain.totalLinks(), "Links should drop sharply: " + multiset.totalLinks() + " vs " + plain.totalLinks());
+            assertTrue(multiset.count(pq.peek()) > 1, "Buckets should hold several payloads");
+            while (!pq.isEmpty()) {
+                assertTrue(multiset.findMinKey() == pq.poll(), "Drain order mismatch");
+                multiset.deleteMin();
+            }
+            assertTrue(multiset.size() == 0 && multiset.findMinKey() == -1 && multiset.distinctKeys() == 0, "Multiset should be empty");
+            pass("Multiset Heap");
+        } catch (Exception e) {
+            fail("Multiset Heap", e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Test 19: A global key offset shifts every key in O(1)
+     */
+    private static void testKeyOffset() {
+        System.out.println("\n--- Test 19: Global Key Offset ---");
+        try {
+            boolean[][] modes = {{true, true}, {true, false}, {false, true}, {false, false}};
+            for (boolean[] mode : modes) {
+                Heap heap = new Heap(mode[0], mode[1]);
+                Heap other = new Heap(mode[0], mode[1]);
+                PriorityQueue<Integer> pq = new PriorityQueue<>();
+                List<Heap.HeapItem> items = new ArrayList<>();
+                Random rand = new Random(37);
+                for (int tick = 0; tick < 200; tick++) {
+                    for (int i = 0; i < 20; i++) {
+                        int key = rand.nextInt(1000) + 1;
+                        items.add(heap.insert(key, null));
+                        pq.add(key);
+                    }
+                    //age every priority, the new items compare against the shifted keys
+                    heap.shiftKeys(-5);
+                    List<Integer> shifted = new ArrayList<>();
+                    for (int k : pq) shifted.add(k - 5);
+                    pq.clear();
+                    pq.addAll(shifted);
+                    heap.deleteMin();
+                    int expected = pq.poll();
+                    assertTrue(heap.findMinKey() == pq.peek(), "Min mismatch after delete, expected " + expected + " removed");
+                    Heap.HeapItem victim = items.get(rand.nextInt(items.size()));
+                    if (victim.node != null) {
+                        pq.remove(heap.keyOf(victim));
+                        heap.delete(victim);
+                    }
+                }
+                assertTrue(heap.keyOffset() == -1000, "Offset should accumulate");
+                for (int i = 0; i < 500; i++) {
+                    int key = rand.nextInt(1000) + 1;
+                    other.insert(key, null);
+                    pq.add(key + 7);
+                }
+                other.shiftKeys(7);
+                heap.meld(other);
+                assertTrue(heap.size() == pq.size(), "Size mismatch after meld");
+                heap.normalizeKeys();
+                assertTrue(heap.keyOffset() == 0 && heap.findMin().key == pq.peek(), "Normalize should fold the offset into the keys");
+                while (!pq.isEmpty()) {
+                    assertTrue(heap.findMinKey() == pq.poll(), "Drain mismatch for mode " + mode[0] + "," + mode[1]);
+                    heap.deleteMin();
+                }
+                assertTrue(heap.findMinKey() == -1, "Heap should be empty");
+            }
+            pass("Global Key Offset");
+        } catch (Exception e) {
+            fail("Global Key Offset", e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Test 20: Equal keys leave a FifoHeap in insertion order
+     */
+    private static void testFifoHeap() {
+        System.out.println("\n--- Test 20: FIFO Ties ---");
+        try {
+            for (boolean lazyMelds : new boolean[] {true, false}) {
+                //start just below 2^32 so the sequences leave the int range during the test
+                FifoHeap heap = new FifoHeap(lazyMelds, (1L << 32) - 3000);
+                PriorityQueue<long[]> pq = new PriorityQueue<>((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+                List<FifoHeap.Node> live = new ArrayList<>();
+                Map<FifoHeap.Node, long[]> entries = new HashMap<>();
+                Random rand = new Random(38);
+                long order = 0;
+                for (int i = 0; i < 10000; i++) {
+                    int op = rand.nextInt(100);
+                    if (op < 50 || live.isEmpty()) {
+                        int key = rand.nextInt(20) + 100;
+                        FifoHeap.Node node = heap.insert(key, "o" + order);
+                        long[] entry = {key, order++};
+                        live.add(node);
+                        entries.put(node, entry);
+                        pq.add(entry);
+                    } else if (op < 80) {
+                        long[] expected = pq.poll();
+                        FifoHeap.Node min = heap.findMin();
+                        assertTrue(min.key() == expected[0] && min.info.equals("o" + expected[1]),
+                            "FIFO order broken: Exp " + expected[0] + "/o" + expected[1] + " Got " + min.key() + "/" + min.info);
+                        heap.deleteMin();
+                        live.remove(min);
+                        entries.remove(min);
+                    } else {
+                        FifoHeap.Node node = live.get(rand.nextInt(live.size()));
+                        long[] entry = entries.get(node);
+                        pq.remove(entry);
+                        int diff = rand.nextInt(10);
+                        heap.decreaseKey(node, diff);
+                        entry[0] -= diff;
+                        pq.add(entry);
+                        assertTrue(node.key() == entry[0], "Key mismatch after decreaseKey");
+                    }
+                }
+                assertTrue(heap.size() == pq.size(), "Size mismatch");
+                FifoHeap other = new FifoHeap(lazyMelds);
+                FifoHeap.Node first = other.insert(1, "first");
+                other.insert(1, "second");
+                heap.meld(other);
+                assertTrue(heap.findMin() == first && other.size() == 0, "Meld should keep the order of the melded heap");
+                heap.delete(first);
+                assertTrue(!first.isLive() && heap.findMin().info.equals("second"), "Delete should remove the node");
+                assertTrue(heap.footprint().payloadBytes > 0 && other.footprint().payloadBytes == 0, "Meld should move the payload counters");
+                while (heap.size() > 0) heap.deleteMin();
+                assertTrue(heap.footprint().payloadBytes == 0, "Deleted payloads should leave the footprint");
+            }
+            pass("FIFO Ties");
+        } catch (Exception e) {
+            fail("FIFO Ties", e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Test 21: Meld accepts heaps created with other policies and adopts the receiver's
+     */
+    private static void testCrossModeMeld() {
+        System.out.println("\n--- Test 21: Cross-Mode Meld ---");
+        try {
+            boolean[][] modes = {{true, true}, {true, false}, {false, true}, {false, false}};
+            for (boolean[] receiverMode : modes) {
+                for (boolean[] otherMode : modes) {
+                    String mode = Arrays.toString(receiverMode) + " <- " + Arrays.toString(otherMode);
+                    Heap receiver = new Heap(receiverMode[0], receiverMode[1]);
+                    Heap other = new Heap(otherMode[0], otherMode[1]);
+                    PriorityQueue<Integer> pq = new PriorityQueue<>();
+                    Random rand = new Random(39);
+                    List<Heap.HeapItem> otherItems = new ArrayList<>();
+                    for (int i = 0; i < 500; i++) {
+                        int key = rand.nextInt(100000) + 1000;
+                        receiver.insert(key, null);
+                        pq.add(key);
+                        otherItems.add(other.insert(key + 1, null));
+                    }
+                    receiver.deleteMin();
+                    pq.poll();
+                    other.deleteMin();
+                    for (Heap.HeapItem item : otherItems) {
+                        if (item.node != null && rand.nextInt(2) == 0) other.decreaseKey(item, rand.nextInt(1000));
+                    }
+                    for (Heap.HeapItem item : otherItems) {
+                        if (item.node != null) pq.add(item.key);
+                    }
+                    if (otherMode[1]) assertTrue(other.numMarkedNodes() > 0, "The melded heap should carry marks for " + mode);
+                    receiver.meld(other);
+                    int[] marks = countMarks(receiver, 2);
+                    assertTrue(marks[0] == receiver.numMarkedNodes(), "Mark count mismatch for " + mode);
+                    if (!receiverMode[1]) assertTrue(receiver.numMarkedNodes() == 0, "Marks should be cleared for " + mode);
+                    if (!receiverMode[0]) assertTrue(receiver.numTrees() <= 32 - Integer.numberOfLeadingZeros(receiver.size()), "Eager receiver should consolidate for " + mode);
+                    assertTrue(receiver.size() == pq.size(), "Size mismatch for " + mode);
+                    //exercise the receiver's decrease policy on melded items
+                    for (Heap.HeapItem item : otherItems) {
+                        if (item.node != null && rand.nextInt(4) == 0) {
+                            pq.remove(item.key);
+                            receiver.decreaseKey(item, 100);
+                            pq.add(item.key);
+                        }
+                    }
+                    while (!pq.isEmpty()) {
+                        assertTrue(receiver.findMin().key == pq.poll(), "Drain mismatch for " + mode);
+                        receiver.deleteMin();
+                    }
+                    assertTrue(receiver.numMarkedNodes() == 0 && receiver.numTrees() == 0, "Receiver should be empty for " + mode);
+                }
+            }
+            pass("Cross-Mode Meld");
+        } catch (Exception e) {
+            fail("Cross-Mode Meld", e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Test 22: extractBelow moves every item below a threshold into a new heap
+     */
+    private static void testExtractBelow() {
+        System.out.println("\n--- Test 22: Extract Below ---");
+        try {
+            boolean[][] modes = {{true, true}, {true, false}, {false, true}, {false, false}};
+            for (boolean[] mode : modes) {
+                String name = Arrays.toString(mode);
+                Heap heap = new Heap(mode[0], mode[1]);
+                List<Heap.HeapItem> items = new ArrayList<>();
+                Random rand = new Random(40);
+                for (int i = 0; i < 3000; i++) {
+                    items.add(heap.insert(rand.nextInt(100000) + 1000, "t" + i, i));
+                }
+                heap.deleteMin();
+                for (Heap.HeapItem item : items) {
+                    if (item.node != null && rand.nextInt(3) == 0) heap.decreaseKey(item, rand.nextInt(1000));
+                }
+                heap.shiftKeys(-500);
+                int threshold = 30000;
+                Heap below = heap.extractBelow(threshold);
+                List<Integer> low = new ArrayList<>();
+                List<Integer> high = new ArrayList<>();
+                for (Heap.HeapItem item : items) {
+                    if (item.node == null) continue;
+                    if (below.containsId(((Heap.IndexedItem) item).id)) low.add(below.keyOf(item));
+                    else if (heap.containsId(((Heap.IndexedItem) item).id)) high.add(heap.keyOf(item));
+                    else throw new RuntimeException("Item lost by extractBelow for " + name);
+                }
+                assertTrue(below.size() == low.size() && heap.size() == high.size(), "Size mismatch for " + name);
+                assertTrue(!low.isEmpty() && !high.isEmpty(), "Both heaps should hold items for " + name);
+                assertTrue(countMarks(heap, 2)[0] == heap.numMarkedNodes() && below.numMarkedNodes() == 0, "Mark count mismatch for " + name);
+                validateHeapStructure(heap);
+                validateHeapStructure(below);
+                assertRankBound(heap, !mode[1], "extractBelow for " + name);
+                assertRankBound(below, !mode[1], "extractBelow result for " + name);
+                if (!mode[0]) {
+                    assertTrue(heap.numTrees() <= 2 * (32 - Integer.numberOfLeadingZeros(heap.size())), "Eager heap should consolidate for " + name);
+                    assertTrue(below.numTrees() <= 2 * (32 - Integer.numberOfLeadingZeros(below.size())), "Eager result should consolidate for " + name);
+                }
+                Collections.sort(low);
+                Collections.sort(high);
+                for (int key : low) {
+                    assertTrue(key < threshold && below.findMinKey() == key, "Extracted order mismatch for " + name);
+                    below.deleteMin();
+                }
+                for (int key : high) {
+                    assertTrue(key >= threshold && heap.findMinKey() == key, "Remaining order mismatch for " + name);
+                    heap.deleteMin();
+                }
+                assertTrue(heap.extractBelow(threshold).size() == 0, "Extracting from an empty heap should return an empty heap");
+            }
+            pass("Extract Below");
+        } catch (Exception e) {
+            fail("Extract Below", e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Test 23: A cursor reads the items in order without modifying the heap
+     */
+    private static void testHeapCursor() {
+        System.out.println("\n--- Test 23: Ordered Cursor ---");
+        try {
+            boolean[][] modes = {{true, true}, {true, false}, {false, true}, {false, false}};
+            for (boolean[] mode : modes) {
+                String name = Arrays.toString(mode);
+                Heap heap = new Heap(mode[0], mode[1]);
+                List<Heap.HeapItem> items = new ArrayList<>();
+                Random rand = new Random(41);
+                for (int i = 0; i < 2000; i++) items.add(heap.insert(rand.nextInt(5000) + 1000, null));
+                heap.deleteMin();
+                for (Heap.HeapItem item : items) {
+                    if (item.node != null && rand.nextInt(3) == 0) heap.decreaseKey(item, rand.nextInt(900));
+                }
+                List<Integer> expected = new ArrayList<>();
+                for (Heap.HeapItem item : items) if (item.node != null) expected.add(item.key);
+                Collections.sort(expected);
+                int trees = heap.numTrees(), marks = heap.numMarkedNodes(), links = heap.totalLinks();
+                Heap.HeapItem min = heap.findMin();
+                HeapCursor cursor = heap.cursor();
+                for (int i = 0; i < 10; i++) {
+                    assertTrue(cursor.peek().key == expected.get(i), "Peek mismatch for " + name);
+                    assertTrue(cursor.next().key == expected.get(i), "Prefix mismatch for " + name);
+                }
+                int read = 10;
+                while (cursor.hasNext()) {
+                    assertTrue(cursor.next().key == expected.get(read++), "Order mismatch for " + name);
+                }
+                assertTrue(read == expected.size() && cursor.peek() == null, "Cursor should visit every item for " + name);
+                assertTrue(heap.numTrees() == trees && heap.numMarkedNodes() == marks && heap.totalLinks() == links
+                    && heap.findMin() == min && heap.size() == expected.size(), "Cursor should not modify the heap for " + name);
+                for (int key : expected) {
+                    assertTrue(heap.findMin().key == key, "Heap order changed for " + name);
+                    heap.deleteMin();
+                }
+                assertTrue(!heap.cursor().hasNext(), "Cursor over an empty heap should be empty");
+            }
+            pass("Ordered Cursor");
+        } catch (Exception e) {
+            fail("Ordered Cursor", e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Test 24: stream() visits every item once, sequentially and in parallel
+     */
+    private static void testHeapStream() {
+        System.out.println("\n--- Test 24: Heap Stream ---");
+        try {
+            boolean[][] modes = {{true, true}, {true, false}, {false, true}, {false, false}};
+            for (boolean[] mode : modes) {
+                String name = Arrays.toString(mode);
+                Heap heap = new Heap(mode[0], mode[1]);
+                assertTrue(heap.stream().count() == 0 && !heap.stream().parallel().findAny().isPresent(), "Empty stream mismatch");
+                Set<Heap.HeapItem> live = Collections.newSetFromMap(new IdentityHashMap<>());
+                List<Heap.HeapItem> items = new ArrayList<>();
+                Random rand = new Random(42);
+                for (int i = 0; i < 20000; i++) items.add(heap.insert(rand.nextInt(100000) + 1000, null));
+                heap.deleteMin();
+                for (Heap.HeapItem item : items) {
+                    if (item.node != null && rand.nextInt(3) == 0) heap.decreaseKey(item, rand.nextInt(900));
+                }
+                long keySum = 0;
+                for (Heap.HeapItem item : items) {
+                    if (item.node != null) {
+                        live.add(item);
+                        keySum += item.key;
+                    }
+                }
+                assertTrue(heap.spliterator().hasCharacteristics(Spliterator.SIZED)
+                    && heap.spliterator().getExactSizeIfKnown() == heap.size(), "Top level spliterator should be SIZED for " + name);
+                assertTrue(heap.stream().count() == live.size(), "Sequential count mismatch for " + name);
+                assertTrue(heap.stream().mapToLong(item -> item.key).sum() == keySum, "Sequential sum mismatch for " + name);
+                assertTrue(heap.stream().parallel().mapToLong(item -> item.key).sum() == keySum, "Parallel sum mismatch for " + name);
+                Set<Heap.HeapItem> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+                seen.addAll(heap.stream().parallel().collect(Collectors.toList()));
+                assertTrue(seen.equals(live), "Parallel stream should visit every live item once for " + name);
+                assertTrue(heap.stream().parallel().filter(item -> item.key < 5000).count()
+                    == live.stream().filter(item -> item.key < 5000).count(), "Parallel filter mismatch for " + name);
+                Spliterator<Heap.HeapItem> rest = heap.spliterator();
+                Spliterator<Heap.HeapItem> prefix = rest.trySplit();
+                long total = 0;
+                while (prefix != null) {
+                    long[] counter = new long[1];
+                    prefix.forEachRemaining(item -> counter[0]++);
+                    total += counter[0];
+                    prefix = rest.trySplit();
+                }
+                long[] counter = new long[1];
+                while (rest.tryAdvance(item -> counter[0]++)) { }
+                assertTrue(total + counter[0] == live.size(), "Repeated splits should cover the heap for " + name);
+            }
+            pass("Heap Stream");
+        } catch (Exception e) {
+            fail("Heap Stream", e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Test 25: Parallel streams collect into a heap through meld
+     */
+    private static void testHeapCollectors() {
+        System.out.println("\n--- Test 25: Heap Collectors ---");
+        try {
+            boolean[][] modes = {{true, true}, {true, false}, {false, true}, {false, false}};
+            Random rand = new Random(43);
+            List<Integer> keys = new ArrayList<>();
+            for (int i = 0; i < 50000; i++) keys.add(rand.nextInt(1000000) + 1);
+            List<Integer> sorted = new ArrayList<>(keys);
+            Collections.sort(sorted);
+            for (boolean[] mode : modes) {
+                String name = Arrays.toString(mode);
+                Heap heap = keys.parallelStream().collect(HeapCollectors.toHeap(k -> k, k -> "k" + k, mode[0], mode[1]));
+                assertTrue(heap.size() == keys.size(), "Size mismatch for " + name);
+                assertTrue(heap.lazyMelds == mode[0] && heap.lazyDecreaseKeys == mode[1], "Policy mismatch for " + name);
+                assertTrue(heap.findMin().info.equals("k" + heap.findMin().key), "Payload mismatch for " + name);
+                if (!mode[0]) assertTrue(heap.numTrees() <= 2 * (32 - Integer.numberOfLeadingZeros(heap.size())), "Eager heap should stay consolidated for " + name);
+                for (int i = 0; i < 1000; i++) {
+                    assertTrue(heap.findMin().key == sorted.get(i), "Order mismatch for " + name);
+                    heap.deleteMin();
+                }
+            }
+            Heap sequential = keys.stream().collect(HeapCollectors.toHeap(k -> k, false, true));
+            assertTrue(sequential.size() == keys.size() && sequential.findMin().key == sorted.get(0) && sequential.findMin().info == null, "Sequential collect mismatch");
+            pass("Heap Collectors");
+        } catch (Exception e) {
+            fail("Heap Collectors", e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Test 26: countBelow, forEachBelow and anyBelow match a full scan
+     */
+    private static void testPrunedQueries() {
+        System.out.println("\n--- Test 26: Pruned Queries ---");
+        try {
+            boolean[][] modes = {{true, true}, {true, false}, {false, true}, {false, false}};
+            for (boolean[] mode : modes) {
+                String name = Arrays.toString(mode);
+                Heap heap = new Heap(mode[0], mode[1]);
+                assertTrue(heap.countBelow(100) == 0 && !heap.anyBelow(100), "Empty heap should have nothing below");
+                List<Heap.HeapItem> items = new ArrayList<>();
+                Random rand = new Random(44);
+                for (int i = 0; i < 5000; i++) items.add(heap.insert(rand.nextInt(100000) + 1000, null));
+                heap.deleteMin();
+                for (Heap.HeapItem item : items) {
+                    if (item.node != null && rand.nextInt(3) == 0) heap.decreaseKey(item, rand.nextInt(900));
+                }
+                heap.shiftKeys(250);
+                int linksBefore = heap.totalLinks();
+                for (int t = 0; t < 50; t++) {
+                    int threshold = (t == 0) ? heap.findMinKey() : rand.nextInt(110000);
+                    int expected = 0;
+                    long expectedSum = 0;
+                    for (Heap.HeapItem item : items) {
+                        if (item.node != null && heap.keyOf(item) < threshold) {
+                            expected++;
+                            expectedSum += heap.keyOf(item);
+                        }
+                    }
+                    long[] seen = new long[2];
+                    heap.forEachBelow(threshold, item -> {
+                        seen[0]++;
+                        seen[1] += heap.keyOf(item);
+                    });
+                    assertTrue(heap.countBelow(threshold) == expected, "countBelow mismatch for " + name + " at " + threshold);
+                    assertTrue(seen[0] == expected && seen[1] == expectedSum, "forEachBelow mismatch for " + name + " at " + threshold);
+                    assertTrue(heap.anyBelow(threshold) == (expected > 0), "anyBelow mismatch for " + name + " at " + threshold);
+                }
+                assertTrue(heap.totalLinks() == linksBefore, "Queries should not modify the heap for " + name);
+            }
+            pass("Pruned Queries");
+        } catch (Exception e) {
+            fail("Pruned Queries", e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Test 27: TopK keeps the k smallest keys of a stream
+     */
+    private static void testTopK() {
+        System.out.println("\n--- Test 27: Top K ---");
+        try {
+            Random rand = new Random(45);
+            int[] keys = new int[100000];
+            for (int i = 0; i < keys.length; i++) keys[i] = rand.nextInt(Integer.MAX_VALUE);
+            TopK topK = new TopK(50);
+            assertTrue(topK.threshold() == Long.MAX_VALUE, "Threshold should be open while not full");
+            topK.offerAll(Arrays.copyOf(keys, 50000));
+            for (int i = 50000; i < keys.length; i++) topK.offer(keys[i], "k" + keys[i]);
+            int[] sorted = keys.clone();
+            Arrays.sort(sorted);
+            int[] kept = topK.sortedKeys();
+            assertTrue(Arrays.equals(kept, Arrays.copyOf(sorted, 50)), "Kept keys should be the 50 smallest, in order");
+            assertTrue(topK.threshold() == kept[49] && !topK.offer(kept[49], "tie"), "Keys at the threshold should be rejected");
+            String[] infos = topK.sortedInfos();
+            for (int i = 0; i < infos.length; i++) {
+                assertTrue(infos[i] == null || infos[i].equals("k" + kept[i]), "Payload order mismatch");
+            }
+            assertTrue(topK.offer(0, "zero") && topK.sortedKeys()[0] == 0 && topK.size() == 50, "A smaller key should evict the largest");
+            topK.clear();
+            assertTrue(topK.size() == 0 && topK.offerAll(new int[] {5, 3, 9}) == 3 && Arrays.equals(topK.sortedKeys(), new int[] {3, 5, 9}), "Clear should reset the selector");
+            pass("Top K");
+        } catch (Exception e) {
+            fail("Top K", e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Test 28: GroupedTopK keeps the k smallest keys of every group in shared arrays
+     */
+    private static void testGroupedTopK() {
+        System.out.println("\n--- Test 28: Grouped Top K ---");
+        try {
+            int k = 5;
+            int groups = 20000;
+            GroupedTopK topK = new GroupedTopK(k);
+            Map<Long, List<Integer>> expected = new HashMap<>();
+            Random rand = new Random(46);
+            int n = 200000;
+            long[] groupIds = new long[n];
+            int[] keys = new int[n];
+            long[] payloads = new long[n];
+            for (int i = 0; i < n; i++) {
+                groupIds[i] = (long) rand.nextInt(groups) * 1000003L - 7;
+                keys[i] = rand.nextInt(1000000);
+                payloads[i] = ((long) keys[i] << 20) ^ groupIds[i];
+                expected.computeIfAbsent(groupIds[i], g -> new ArrayList<>()).add(keys[i]);
+            }
+            topK.offerAll(groupIds, keys, payloads);
+            assertTrue(topK.numGroups() == expected.size(), "Group count mismatch");
+            long sampleGroup = groupIds[0];
+            assertTrue(topK.count(sampleGroup) == Math.min(k, expected.get(sampleGroup).size()) && topK.count(-1) == 0, "Per group count mismatch");
+            long perGroupOverhead = topK.footprint().overheadBytes / topK.numGroups();
+            assertTrue(perGroupOverhead <= 64, "Per group overhead should be a few bytes, got " + perGroupOverhead);
+            Map<Long, List<Integer>> emitted = new HashMap<>();
+            topK.emit((groupId, key, payload) -> {
+                assertTrue(payload == (((long) key << 20) ^ groupId), "Payload should follow its key");
+                emitted.computeIfAbsent(groupId, g -> new ArrayList<>()).add(key);
+            });
+            for (Map.Entry<Long, List<Integer>> entry : expected.entrySet()) {
+                List<Integer> all = entry.getValue();
+                Collections.sort(all);
+                assertTrue(emitted.get(entry.getKey()).equals(all.subList(0, Math.min(k, all.size()))), "Group " + entry.getKey() + " mismatch");
+            }
+            assertTrue(topK.numGroups() == 0 && topK.count(sampleGroup) == 0, "Emit should drain the operator");
+            assertTrue(topK.offer(3, 10, 1) && topK.offer(3, 10, 2) && topK.count(3) == 2, "The operator should be reusable after emit");
+
+            //small groups must not reserve k entries each
+            GroupedTopK sparse = new GroupedTopK(100);
+            for (int g = 0; g < 100000; g++) {
+                sparse.offer(g, g % 7, g);
+                sparse.offer(g, g % 5, -g);
+            }
+            HeapFootprint footprint = sparse.footprint();
+            assertTrue(footprint.nodeBytes == 100000L * 2 * 12, "Only kept items should count as nodes, got " + footprint.nodeBytes);
+            assertTrue(footprint.overheadBytes / sparse.numGroups() <= 64, "Sparse per group overhead should be a few bytes, got " + footprint.overheadBytes / sparse.numGroups());
+            List<Integer> sparseKeys = new ArrayList<>();
+            sparse.emit((groupId, key, payload) -> {
+                if (groupId == 12) sparseKeys.add(key);
+            });
+            assertTrue(sparseKeys.equals(Arrays.asList(2, 5)), "Sparse group mismatch: " + sparseKeys);
+            GroupedTopK wide = new GroupedTopK(1 << 28);
+            for (int i = 0; i < 1000; i++) wide.offer(i % 3, 1000 - i, i);
+            assertTrue(wide.count(0) == 334 && wide.footprint().total() < (1 << 20), "A large k should only reserve what is used");
+            pass("Grouped Top K");
+        } catch (Exception e) {
+            fail("Grouped Top K", e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Test 29: Batch deletes and a sliding window minimum built on them
+     */
+    private static void testSlidingWindowMin() {
+        System.out.println("\n--- Test 29: Sliding Window Min ---");
+        try {
+            boolean[][] modes = {{true, true}, {true, false}, {false, true}, {false, false}};
+            for (boolean[] mode : modes) {
+                String name = Arrays.toString(mode);
+                Heap heap = new Heap(mode[0], mode[1]);
+                Heap.HeapItem[] items = new Heap.HeapItem[3000];
+                Random rand = new Random(47);
+                for (int i = 0; i < items.length; i++) items[i] = heap.insert(rand.nextInt(100000) + 1000, null, i);
+                heap.deleteMin();
+                for (Heap.HeapItem item : items) {
+                    if (item.node != null && rand.nextInt(3) == 0) heap.decreaseKey(item, rand.nextInt(900));
+                }
+                List<Heap.HeapItem> batch = new ArrayList<>();
+                for (Heap.HeapItem item : items) if (rand.nextInt(3) == 0) batch.add(item);
+                batch.add(heap.findMin());
+                batch.add(null);
+                heap.deleteAll(batch.toArray(new Heap.HeapItem[0]), 0, batch.size());
+                PriorityQueue<Integer> pq = new PriorityQueue<>();
+                for (Heap.HeapItem item : items) if (item.node != null) pq.add(item.key);
+                for (Heap.HeapItem item : batch) {
+                    assertTrue(item == null || (item.node == null && !heap.containsId(((Heap.IndexedItem) item).id)), "Batch item should be deleted for " + name);
+                }
+                assertTrue(heap.size() == pq.size() && countMarks(heap, 2)[0] == heap.numMarkedNodes(), "Counters mismatch after deleteAll for " + name);
+                while (!pq.isEmpty()) {
+                    assertTrue(heap.findMin().key == pq.poll(), "Order mismatch after deleteAll for " + name);
+                    heap.deleteMin();
+                }
+                //hollowing out a B_12 must keep the rank bound, and the binomial shape without lazy decrease keys
+                heap = new Heap(mode[0], mode[1]);
+                for (int i = 1; i <= 4097; i++) heap.insert(i, "v");
+                heap.deleteMin();
+                List<Integer> left = new ArrayList<>();
+                for (Heap.HeapItem item : itemsAtDepth(heap, 0)) left.add(item.key);
+                List<Heap.HeapItem> deep = itemsAtDepth(heap, 2);
+                for (Heap.HeapItem item : deep) left.remove(Integer.valueOf(item.key));
+                heap.deleteAll(deep.toArray(new Heap.HeapItem[0]), 0, deep.size());
+                validateHeapStructure(heap);
+                int[] marks = countMarks(heap, 2);
+                assertTrue(marks[0] == heap.numMarkedNodes() && marks[1] == 0, "Marks mismatch after deleteAll for " + name);
+                assertRankBound(heap, !mode[1], "deleteAll for " + name);
+                heap.insert(1, "v");
+                heap.deleteMin();
+                Collections.sort(left);
+                for (int expected : left) {
+                    assertTrue(heap.findMin().key == expected, "Order mismatch after hollowing out for " + name);
+                    heap.deleteMin();
+                }
+            }
+            SlidingWindowMin window = new SlidingWindowMin(50);
+            assertTrue(window.currentMin() == -1, "Empty window should have no min");
+            Random rand = new Random(47);
+            List<long[]> samples = new ArrayList<>();
+            for (int t = 0; t < 5000; t++) {
+                int arrivals = rand.nextInt(4);
+                for (int i = 0; i < arrivals; i++) {
+                    int value = rand.nextInt(10000) + 1;
+                    window.add(t, value);
+                    samples.add(new long[] {t, value});
+                }
+                window.advance(t);
+                int expected = Integer.MAX_VALUE;
+                int live = 0;
+                for (long[] sample : samples) {
+                    if (sample[0] > t - 50) {
+                        expected = Math.min(expected, (int) sample[1]);
+                        live++;
+                    }
+                }
+                assertTrue(window.size() == live, "Window size mismatch at " + t);
+                assertTrue(window.currentMin() == (live == 0 ? -1 : expected), "Window min mismatch at " + t);
+            }
+            try {
+                window.add(0, 5);
+                throw new RuntimeException("Out of order samples should be rejected");
+            } catch (IllegalArgumentException expected) {
+                //expected
+            }
+            pass("Sliding Window Min");
+        } catch (Exception e) {
+            fail("Sliding Window Min", e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Test 30: RunningQuantile matches a sorted list under adds and removes
+     */
+    private static void testRunningQuantile() {
+        System.out.println("\n--- Test 30: Running Quantile ---");
+        try {
+            for (double q : new double[] {0.5, 0.1, 0.9, 0.99, 1.0}) {
+                RunningQuantile quantile = new RunningQuantile(q);
+                Map<Long, Integer> live = new HashMap<>();
+                List<Long> ids = new ArrayList<>();
+                Random rand = new Random(48);
+                for (int step = 0; step < 4000; step++) {
+                    if (rand.nextInt(3) > 0 || ids.isEmpty()) {
+                        int value = rand.nextInt(2001) - 1000;
+                        long id = quantile.add(value);
+                        live.put(id, value);
+                        ids.add(id);
+                    } else {
+                        long id = ids.remove(rand.nextInt(ids.size()));
+                        assertTrue(quantile.remove(id) && !quantile.contains(id), "Remove should delete the sample");
+                        live.remove(id);
+                    }
+                    assertTrue(quantile.size() == live.size(), "Size mismatch");
+                    if (live.isEmpty()) continue;
+                    List<Integer> sorted = new ArrayList<>(live.values());
+                    Collections.sort(sorted);
+                    int rank = Math.max(1, RunningQuantile.rank(q, sorted.size()));
+                    assertTrue(quantile.value() == sorted.get(rank - 1), "Quantile " + q + " mismatch at step " + step);
+                }
+                assertTrue(!quantile.remove(-1), "Unknown ids should be ignored");
+            }
+            //q * n of a decimal q is not exact, 0.07 * 100 is 7.000000000000001
+            for (int percent = 1; percent <= 100; percent++) {
+                double q = percent / 100.0;
+                RunningQuantile quantile = new RunningQuantile(q);
+                for (int n = 1; n <= 200; n++) {
+                    quantile.add(n);
+                    int rank = Math.max(1, (percent * n + 99) / 100);
+                    assertTrue(quantile.value() == rank, "Quantile " + q + " of 1.." + n + " should be " + rank);
+                }
+            }
+            for (double q : new double[] {0.07, 0.29}) {
+                RunningQuantile quantile = new RunningQuantile(q);
+                for (int value = 100; value >= 1; value--) quantile.add(value);
+                assertTrue(quantile.value() == (int) Math.round(q * 100), "Quantile " + q + " of 1..100 mismatch");
+            }
+            try {
+                new RunningQuantile(0);
+                throw new RuntimeException("q = 0 should be rejected");
+            } catch (IllegalArgumentException expected) {
+                //expected
+            }
+            //~Integer.MAX_VALUE and Integer.MIN_VALUE are stored as Integer.MIN_VALUE, the key delete lowers to
+            for (double q : new double[] {1.0, 0.01}) {
+                for (int value : new int[] {Integer.MAX_VALUE, Integer.MIN_VALUE}) {
+                    RunningQuantile quantile = new RunningQuantile(q);
+                    long[] ids = new long[8];
+                    for (int i = 0; i < ids.length; i++) ids[i] = quantile.add(value);
+                    quantile.add(7);
+                    for (long id : ids) {
+                        assertTrue(quantile.remove(id) && !quantile.contains(id), "Extreme sample " + value + " should be removed");
+                    }
+                    assertTrue(quantile.size() == 1 && quantile.value() == 7, "Only the middle sample should be left");
+                }
+            }
+            boolean[][] modes = {{true, true}, {true, false}, {false, true}, {false, false}};
+            for (boolean[] mode : modes) {
+                Heap heap = new Heap(mode[0], mode[1]);
+                List<Heap.HeapItem> items = new ArrayList<>();
+                for (int i = 0; i < 64; i++) items.add(heap.insert(Integer.MIN_VALUE, null));
+                heap.insert(Integer.MIN_VALUE + 1, null);
+                heap.deleteMin();
+                for (Heap.HeapItem item : items) {
+                    if (item.node == null) continue;
+                    heap.delete(item);
+                    validateHeapStructure(heap);
+                }
+                assertTrue(heap.size() == 1 && heap.findMin().key == Integer.MIN_VALUE + 1,
+                    "Integer.MIN_VALUE keys should be deleted for " + Arrays.toString(mode));
+            }
+            pass("Running Quantile");
+        } catch (Exception e) {
+            fail("Running Quantile", e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Test 31: Dijkstra on a CSR graph agrees with a PriorityQueue reference in every mode
+     */
+    private static void testDijkstra() {
+        System.out.println("\n--- Test 31: Dijkstra ---");
+        try {
+            int n = 3000;
+            int[][] graph = HeapBenchmark.randomGraph(n, 15000, 49);
+            int[] offsets = graph[0], targets = graph[1], weights = graph[2];
+            long[] expected = new long[n];
+            Arrays.fill(expected, -1);
+            PriorityQueue<long[]> pq = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+            pq.add(new long[] {0, 0});
+            while (!pq.isEmpty()) {
+                long[] top = pq.poll();
+                int u = (int) top[1];
+                if (expected[u] >= 0) continue;
+                expected[u] = top[0];
+                for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                    if (expected[targets[e]] < 0) pq.add(new long[] {top[0] + weights[e], targets[e]});
+                }
+            }
+            Dijkstra dijkstra = new Dijkstra(offsets, targets, weights);
+            boolean[][] modes = {{true, true}, {true, false}, {false, true}, {false, false}};
+            for (int run = 0; run < 2; run++) {
+                for (boolean[] mode : modes) {
+                    String name = Arrays.toString(mode);
+                    Dijkstra.Result result = dijkstra.run(0, mode[0], mode[1]);
+                    for (int v = 0; v < n; v++) {
+                        assertTrue(result.distances[v] == expected[v], "Distance mismatch at " + v + " for " + name);
+                        int p = result.predecessors[v];
+                        if (v == 0 || expected[v] < 0) {
+                            assertTrue(p == -1, "Predecessor should be empty at " + v + " for " + name);
+                        } else {
+                            boolean edgeFound = false;
+                            for (int e = offsets[p]; e < offsets[p + 1]; e++) {
+                                if (targets[e] == v && expected[p] + weights[e] == expected[v]) edgeFound = true;
+                            }
+                            assertTrue(edgeFound, "Predecessor edge is not tight at " + v + " for " + name);
+                        }
+                    }
+                }
+            }
+            try {
+                new Dijkstra(new int[] {0, 1}, new int[] {0}, new int[] {-1});
+                throw new RuntimeException("Negative weights should be rejected");
+            } catch (IllegalArgumentException expectedException) {
+                //expected
+            }
+            pass("Dijkstra");
+        } catch (Exception e) {
+            fail("Dijkstra", e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Test 32: Prim agrees with Kruskal on every Heap mode and every engine
+     */
+    private static void testPrim() {
+        System.out.println("\n--- Test 32: Prim ---");
+        try {
+            int n = 2000;
+            int edges = 6000;
+            int[][] graph = HeapBenchmark.randomUndirectedGraph(n, edges, 50);
+            int[] offsets = graph[0], targets = graph[1], weights = graph[2];
+            //Kruskal with union find as the reference
+            List<int[]> edgeList = new ArrayList<>();
+            for (int u = 0; u < n; u++) {
+                for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                    if (u < targets[e]) edgeList.add(new int[] {weights[e], u, targets[e]});
+                }
+            }
+            edgeList.sort((a, b) -> Integer.compare(a[0], b[0]));
+            int[] leader = new int[n];
+            for (int v = 0; v < n; v++) leader[v] = v;
+            long expectedWeight = 0;
+            int expectedEdges = 0;
+            for (int[] edge : edgeList) {
+                int a = edge[1], b = edge[2];
+                while (leader[a] != a) a = leader[a] = leader[leader[a]];
+                while (leader[b] != b) b = leader[b] = leader[leader[b]];
+                if (a == b) continue;
+                leader[a] = b;
+                expectedWeight += edge[0];
+                expectedEdges++;
+            }
+            Prim prim = new Prim(offsets, targets, weights);
+            List<HeapEngine> engines = new ArrayList<>(Arrays.asList(
+                new Heap(true, true), new Heap(true, false), new Heap(false, true), new Heap(false, false),
+                new LazyFibHeap(), new EagerFibHeap(), new LazyBinomialHeap(), new EagerBinomialHeap(), new ArrayRootFibHeap()));
+            for (HeapEngine engine : engines) {
+                String name = engine.getClass().getName();
+                Prim.Result result = prim.run(engine);
+                assertTrue(result.totalWeight == expectedWeight && result.numEdges == expectedEdges,
+                    "MST mismatch for " + name + ": " + result.totalWeight + " vs " + expectedWeight);
+                long sum = 0;
+                for (int v = 0; v < n; v++) {
+                    int p = result.parents[v];
+                    if (p == -1) continue;
+                    boolean edgeFound = false;
+                    for (int e = offsets[p]; e < offsets[p + 1]; e++) {
+                        if (targets[e] == v && weights[e] == result.parentWeights[v]) edgeFound = true;
+                    }
+                    assertTrue(edgeFound, "Tree edge " + p + "-" + v + " is not in the graph for " + name);
+                    sum += result.parentWeights[v];
+                }
+                assertTrue(sum == expectedWeight && engine.size() == 0, "Tree edges should add up to the weight for " + name);
+            }
+            assertTrue(prim.run(true, true).totalWeight == expectedWeight, "A second run should reuse the handles");
+            pass("Prim");
+        } catch (Exception e) {
+            fail("Prim", e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private static void runStressTest(boolean lazyMelds, boolean lazyDecrease) {
+        runStressTest(new Heap(lazyMelds, lazyDecrease));
+    }
+
+    private static void runStressTest(Heap heap) {
         PriorityQueue<Integer> pq = new PriorityQueue<>();
         List<Heap.HeapItem> liveItems = new ArrayList<>();
         Random rand = new Random(12345);
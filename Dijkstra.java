@@ -0,0 +1,123 @@
+import java.util.Arrays;
+
+/**
+ * Dijkstra
+ *
+ * Single source shortest paths over a graph in compressed sparse row form:
+ * the edges leaving vertex v are targets[offsets[v]..offsets[v + 1]) with the
+ * weights at the same positions.
+ * Every vertex has a preallocated handle, a HeapItem subclass that carries the
+ * vertex number, which is inserted with Heap.insertItem when the vertex is first
+ * reached and lowered with decreaseKey, so no map from vertices to handles is needed.
+ * The heap can use any of the four lazyMelds / lazyDecreaseKeys modes.
+ *
+ */
+public final class Dijkstra
+{
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] weights;
+    private final VertexItem[] handles;
+
+    /**
+     *
+     * Constructor to initialize the engine for a graph with offsets.length - 1 vertices.
+     * throws IllegalArgumentException if the arrays do not describe a graph with non negative weights.
+     * complexity O(n + m)
+     *
+     */
+    public Dijkstra(int[] offsets, int[] targets, int[] weights)
+    {
+        this.handles = VertexItem.handlesFor(offsets, targets, weights);
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    /**
+     *
+     * Return the number of vertices.
+     * complexity O(1)
+     *
+     */
+    public int numVertices()
+    {
+        return this.handles.length;
+    }
+
+    /**
+     *
+     * Compute the shortest paths from source with a Heap of the given mode.
+     * throws ArithmeticException if a distance does not fit in an int.
+     * complexity O(m + n log n) with lazy decrease keys, O(m log n) otherwise
+     *
+     */
+    public Result run(int source, boolean lazyMelds, boolean lazyDecreaseKeys)
+    {
+        int n = this.handles.length;
+        if (source < 0 || source >= n) throw new IllegalArgumentException("source " + source + " is not a vertex");
+        int[] distances = new int[n];
+        int[] predecessors = new int[n];
+        Arrays.fill(distances, -1);
+        Arrays.fill(predecessors, -1);
+        for (VertexItem handle : this.handles)
+        {
+            handle.node = null;
+            handle.settled = false;
+        }
+        Heap heap = new Heap(lazyMelds, lazyDecreaseKeys);
+        VertexItem start = this.handles[source];
+        start.key = 0;
+        heap.insertItem(start);
+        while (heap.size() > 0)
+        {
+            VertexItem u = (VertexItem) heap.findMin();
+            int du = u.key;
+            heap.deleteMin();
+            u.settled = true;
+            distances[u.vertex] = du;
+            for (int e = this.offsets[u.vertex], end = this.offsets[u.vertex + 1]; e < end; e++)
+            {
+                VertexItem v = this.handles[this.targets[e]];
+                if (v.settled) continue;
+                int candidate = Math.addExact(du, this.weights[e]);
+                if (v.node == null)
+                {
+                    v.key = candidate;
+                    heap.insertItem(v);
+                    predecessors[v.vertex] = u.vertex;
+                }
+                else if (candidate < v.key)
+                {
+                    heap.decreaseKey(v, v.key - candidate);
+                    predecessors[v.vertex] = u.vertex;
+                }
+            }
+        }
+        return new Result(distances, predecessors, heap.totalLinks(), heap.totalCuts(), heap.totalHeapifyCosts());
+    }
+
+    /**
+     * Class holding the result of a run.
+     * distances[v] is -1 and predecessors[v] is -1 for a vertex that cannot be reached,
+     * and predecessors[source] is -1.
+     *
+     */
+    public static final class Result
+    {
+        public final int[] distances;
+        public final int[] predecessors;
+        public final int totalLinks;
+        public final int totalCuts;
+        public final int totalHeapifyCosts;
+
+        Result(int[] distances, int[] predecessors, int totalLinks, int totalCuts, int totalHeapifyCosts)
+        {
+            this.distances = distances;
+            this.predecessors = predecessors;
+            this.totalLinks = totalLinks;
+            this.totalCuts = totalCuts;
+            this.totalHeapifyCosts = totalHeapifyCosts;
+        }
+    }
+}
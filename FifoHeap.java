@@ -0,0 +1,123 @@
+/**
+ * FifoHeap
+ *
+ * Cut based heap with String payloads that breaks ties in insertion order.
+ * Every node keeps an insertion sequence next to its key. Comparisons in link and
+ * successiveLink stay a single int comparison of the keys, and only equal keys read
+ * the sequences through the tie hook of AbstractCompactHeap, so equal keys come out
+ * first in, first out.
+ * Like the other compact engines, the node is also the handle.
+ *
+ */
+public final class FifoHeap extends AbstractStringCompactHeap<FifoHeap.Node>
+{
+    private static final long NODE_BYTES = HeapFootprint.objectBytes(STRING_NODE_FIELD_BYTES + 8);
+
+    private long nextSequence;
+
+    /**
+     *
+     * Constructor to initialize an empty heap, with or without lazy melds.
+     * complexity O(1)
+     *
+     */
+    public FifoHeap(boolean lazyMelds)
+    {
+        this(lazyMelds, 0);
+    }
+
+    /**
+     *
+     * Constructor to initialize an empty heap whose first insert gets firstSequence.
+     * complexity O(1)
+     *
+     */
+    FifoHeap(boolean lazyMelds, long firstSequence)
+    {
+        super(lazyMelds);
+        this.nextSequence = firstSequence;
+    }
+
+    /**
+     *
+     * pre: key > 0
+     * Insert (key,info) into the heap and return the node, which is also the handle.
+     * for lazy meld complexity O(1) amortized
+     * for non-lazy meld complexity O(log n)
+     *
+     */
+    public Node insert(int key, String info)
+    {
+        return insertPayloadNode(new Node(key, this.nextSequence++, info));
+    }
+
+    /**
+     *
+     * Meld the heap with heap2, which is left empty.
+     * the sequences of the two heaps are not related, so equal keys keep
+     * their insertion order within each heap but not across the two.
+     * pre: heap2.lazyMelds = this.lazyMelds
+     * complexity O(1) for lazy melds
+     * complexity O(log n) for non-lazy melds
+     *
+     */
+    public void meld(FifoHeap heap2)
+    {
+        this.nextSequence = Math.max(this.nextSequence, heap2.nextSequence);
+        meldPayloadsWith(heap2);
+    }
+
+    /**
+     *
+     * equal keys are ordered by sequence, which is unique within a heap.
+     * a decreased node keeps its sequence, so it stays ahead of equal keys inserted after it.
+     * complexity O(1)
+     *
+     */
+    protected boolean precedesOnTie(CompactNode a, CompactNode b)
+    {
+        return ((Node) a).sequence < ((Node) b).sequence;
+    }
+
+    protected long nodeBytes()
+    {
+        return NODE_BYTES;
+    }
+
+    /**
+     * Class implementing a compact node with an insertion sequence and a String payload.
+     *
+     */
+    public static final class Node extends StringCompactNode
+    {
+        final long sequence;
+
+        Node(int key, long sequence, String info)
+        {
+            super(key, info);
+            this.sequence = sequence;
+        }
+
+        /**
+         *
+         * Return the key of the node.
+         * complexity O(1)
+         *
+         */
+        public int key()
+        {
+            return this.key;
+        }
+
+        /**
+         *
+         * Return the insertion sequence of the node.
+         * complexity O(1)
+         *
+         */
+        public long sequence()
+        {
+            return this.sequence;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+/**
+ * FootprintAware
+ *
+ * Heaps that can report their own memory use in O(1), so capacity planning can
+ * compare engines directly.
+ *
+ */
+public interface FootprintAware
+{
+    /**
+     * Return the estimated number of bytes used by the heap, the same as footprint().total().
+     */
+    long estimatedBytes();
+
+    /**
+     * Return the estimated memory use split into nodes, items, payloads, the
+     * transient consolidation buffer and fixed overhead.
+     */
+    HeapFootprint footprint();
+}
@@ -0,0 +1,383 @@
+import java.util.Arrays;
+
+/**
+ * GroupedTopK
+ *
+ * Keeps the k smallest keys of every group, for millions of groups.
+ * Instead of a Heap per group, every group owns a region of shared int and long
+ * arrays, organized as a bounded binary max-heap, so the largest kept key of a
+ * group is at the start of its region and a key that is not below it is rejected
+ * with one comparison.
+ * A region holds min(k, next power of two) entries for the items of its group and
+ * doubles when it fills up, so a small group does not reserve k entries. Regions
+ * are bump allocated, and the regions left behind by growing groups are reclaimed
+ * when the arrays are laid out again.
+ * Groups are found through an open addressing map from group id to group slot. The
+ * slot keeps the group id next to the packed fill count and region start, so a lookup
+ * reads one cache line per group, and the whole group costs a few bytes.
+ *
+ */
+public final class GroupedTopK implements FootprintAware
+{
+    private static final int INITIAL_GROUPS = 16;
+    private static final int MAX_REGION_ENTRIES = Integer.MAX_VALUE - 8;
+    private static final long ENTRY_BYTES = 4 + 8;
+    private static final long ENGINE_BYTES = HeapFootprint.objectBytes(4 * HeapFootprint.REFERENCE_BYTES + 5 * 4);
+
+    /**
+     * Receiver of the emitted items.
+     *
+     */
+    public interface Sink
+    {
+        void accept(long groupId, int key, long payload);
+    }
+
+    private final int k;
+    private int[] keys; //region of group slot s is [startOf(s), startOf(s) + capacity(countOf(s)))
+    private long[] payloads;
+    private int used; //regions are bump allocated from [0, used)
+    private int numKept;
+    private long[] groups; //group slot s is the group id at 2s and count << 32 | region start at 2s + 1
+    private int numGroups;
+    private int[] mapSlots; //open addressing map from group id to slot + 1, 0 marks an empty entry
+    private int shift;
+
+    /**
+     *
+     * Constructor to initialize an empty operator that keeps the k smallest keys of every group.
+     * complexity O(1)
+     *
+     */
+    public GroupedTopK(int k)
+    {
+        if (k < 1) throw new IllegalArgumentException("k must be >= 1");
+        this.k = k;
+        this.keys = new int[INITIAL_GROUPS];
+        this.payloads = new long[INITIAL_GROUPS];
+        this.groups = new long[2 * INITIAL_GROUPS];
+        this.mapSlots = new int[2 * INITIAL_GROUPS];
+        this.shift = 64 - Integer.numberOfTrailingZeros(2 * INITIAL_GROUPS);
+    }
+
+    /**
+     *
+     * Offer (key,payload) to the group and return whether it was kept.
+     * ties keep the earlier item.
+     * complexity O(1) expected for a rejected item, O(log k) amortized for a kept item
+     *
+     */
+    public boolean offer(long groupId, int key, long payload)
+    {
+        int slot = slotOf(groupId);
+        long state = this.groups[2 * slot + 1];
+        int count = (int) (state >>> 32);
+        int base = (int) state;
+        if (count < this.k)
+        {
+            if (count == capacity(count)) base = growRegion(slot, count);
+            this.groups[2 * slot + 1] = ((long) (count + 1) << 32) | base;
+            this.numKept++;
+            siftUp(base, count, key, payload);
+            return true;
+        }
+        if (key >= this.keys[base]) return false;
+        siftDown(base, this.k, 0, key, payload);
+        return true;
+    }
+
+    /**
+     *
+     * Offer (keys[i], payloads[i]) to group groupIds[i] for every i and return the number of kept items.
+     * complexity O(n) expected plus O(log k) for every kept item
+     *
+     */
+    public int offerAll(long[] groupIds, int[] keys, long[] payloads)
+    {
+        int kept = 0;
+        for (int i = 0; i < keys.length; i++)
+        {
+            if (offer(groupIds[i], keys[i], payloads[i])) kept++;
+        }
+        return kept;
+    }
+
+    /**
+     *
+     * Pass every kept item to sink, group by group and in ascending key order within
+     * a group, and leave the operator empty. every region is sorted in place.
+     * complexity O(n log k) for n kept items
+     *
+     */
+    public void emit(Sink sink)
+    {
+        for (int slot = 0; slot < this.numGroups; slot++)
+        {
+            int base = startOf(slot);
+            int count = countOf(slot);
+            //heap sort the region, moving the largest remaining key to the end
+            for (int end = count - 1; end > 0; end--)
+            {
+                int key = this.keys[base + end];
+                long payload = this.payloads[base + end];
+                this.keys[base + end] = this.keys[base];
+                this.payloads[base + end] = this.payloads[base];
+                siftDown(base, end, 0, key, payload);
+            }
+            long groupId = this.groups[2 * slot];
+            for (int i = 0; i < count; i++)
+            {
+                sink.accept(groupId, this.keys[base + i], this.payloads[base + i]);
+            }
+        }
+        clear();
+    }
+
+    /**
+     *
+     * Return the number of kept items of the group.
+     * complexity O(1) expected
+     *
+     */
+    public int count(long groupId)
+    {
+        int slot = find(groupId);
+        return (slot < 0) ? 0 : countOf(slot);
+    }
+
+    /**
+     *
+     * Return the number of groups that received an item.
+     * complexity O(1)
+     *
+     */
+    public int numGroups()
+    {
+        return this.numGroups;
+    }
+
+    /**
+     *
+     * Remove every group, keeping the allocated arrays.
+     * complexity O(groups)
+     *
+     */
+    public void clear()
+    {
+        Arrays.fill(this.groups, 0, 2 * this.numGroups, 0);
+        Arrays.fill(this.mapSlots, 0);
+        this.numGroups = 0;
+        this.numKept = 0;
+        this.used = 0;
+    }
+
+    private int countOf(int slot)
+    {
+        return (int) (this.groups[2 * slot + 1] >>> 32);
+    }
+
+    private int startOf(int slot)
+    {
+        return (int) this.groups[2 * slot + 1];
+    }
+
+    /**
+     *
+     * return the number of entries reserved for a group holding count items:
+     * 0 for an empty group, otherwise the smallest power of two >= count, at most k.
+     * complexity O(1)
+     *
+     */
+    private int capacity(int count)
+    {
+        if (count <= 1) return count;
+        return (int) Math.min(this.k, Long.highestOneBit(count - 1) << 1);
+    }
+
+    /**
+     *
+     * pre: the region of slot is full and holds count < k items
+     * move the items of slot to a region of twice the size, at most k, and return its start.
+     * the old region stays unused until the next layout.
+     * complexity O(count) amortized
+     *
+     */
+    private int growRegion(int slot, int count)
+    {
+        int size = (count == 0) ? 1 : (int) Math.min(this.k, 2L * count);
+        if (size > this.keys.length - this.used) layout(size);
+        int start = this.used;
+        this.used += size;
+        System.arraycopy(this.keys, startOf(slot), this.keys, start, count);
+        System.arraycopy(this.payloads, startOf(slot), this.payloads, start, count);
+        this.groups[2 * slot + 1] = ((long) count << 32) | start;
+        return start;
+    }
+
+    /**
+     *
+     * copy the live regions to new arrays, back to back in slot order, with room for
+     * extra more entries and a quarter of slack, dropping the regions left behind.
+     * throws IllegalStateException if the regions no longer fit in an array.
+     * complexity O(groups + kept items)
+     *
+     */
+    private void layout(int extra)
+    {
+        long live = 0;
+        for (int slot = 0; slot < this.numGroups; slot++) live += capacity(countOf(slot));
+        long needed = live + extra;
+        if (needed > MAX_REGION_ENTRIES)
+        {
+            throw new IllegalStateException("GroupedTopK cannot reserve more than " + MAX_REGION_ENTRIES + " entries");
+        }
+        int length = (int) Math.min(MAX_REGION_ENTRIES, Math.max(INITIAL_GROUPS, needed + needed / 4));
+        int[] newKeys = new int[length];
+        long[] newPayloads = new long[length];
+        int position = 0;
+        for (int slot = 0; slot < this.numGroups; slot++)
+        {
+            int count = countOf(slot);
+            System.arraycopy(this.keys, startOf(slot), newKeys, position, count);
+            System.arraycopy(this.payloads, startOf(slot), newPayloads, position, count);
+            this.groups[2 * slot + 1] = ((long) count << 32) | position;
+            position += capacity(count);
+        }
+        this.keys = newKeys;
+        this.payloads = newPayloads;
+        this.used = position;
+    }
+
+    /**
+     *
+     * place (key,payload) at index i of the region at base, moving it up past smaller parents.
+     * complexity O(log k)
+     *
+     */
+    private void siftUp(int base, int i, int key, long payload)
+    {
+        while (i > 0)
+        {
+            int parent = (i - 1) >>> 1;
+            if (this.keys[base + parent] >= key) break;
+            this.keys[base + i] = this.keys[base + parent];
+            this.payloads[base + i] = this.payloads[base + parent];
+            i = parent;
+        }
+        this.keys[base + i] = key;
+        this.payloads[base + i] = payload;
+    }
+
+    /**
+     *
+     * place (key,payload) at index i of the region at base holding count entries, moving it down past larger children.
+     * complexity O(log k)
+     *
+     */
+    private void siftDown(int base, int count, int i, int key, long payload)
+    {
+        int half = count >>> 1;
+        while (i < half)
+        {
+            int child = 2 * i + 1;
+            if (child + 1 < count && this.keys[base + child + 1] > this.keys[base + child]) child++;
+            if (key >= this.keys[base + child]) break;
+            this.keys[base + i] = this.keys[base + child];
+            this.payloads[base + i] = this.payloads[base + child];
+            i = child;
+        }
+        this.keys[base + i] = key;
+        this.payloads[base + i] = payload;
+    }
+
+    /**
+     *
+     * return the home entry of groupId in the map, using the fibonacci hash of the id.
+     * complexity O(1)
+     *
+     */
+    private int home(long groupId)
+    {
+        return (int) ((groupId * 0x9E3779B97F4A7C15L) >>> this.shift);
+    }
+
+    /**
+     *
+     * return the slot of groupId, or -1 if the group has no slot.
+     * complexity O(1) expected
+     *
+     */
+    private int find(long groupId)
+    {
+        int mask = this.mapSlots.length - 1;
+        for (int i = home(groupId); this.mapSlots[i] != 0; i = (i + 1) & mask)
+        {
+            if (this.groups[2 * (this.mapSlots[i] - 1)] == groupId) return this.mapSlots[i] - 1;
+        }
+        return -1;
+    }
+
+    /**
+     *
+     * return the slot of groupId, giving the group a new slot if it has none.
+     * complexity O(1) amortized
+     *
+     */
+    private int slotOf(long groupId)
+    {
+        int mask = this.mapSlots.length - 1;
+        int i = home(groupId);
+        for (; this.mapSlots[i] != 0; i = (i + 1) & mask)
+        {
+            if (this.groups[2 * (this.mapSlots[i] - 1)] == groupId) return this.mapSlots[i] - 1;
+        }
+        int slot = this.numGroups++;
+        if (2 * slot == this.groups.length) this.groups = Arrays.copyOf(this.groups, 2 * this.groups.length);
+        this.groups[2 * slot] = groupId;
+        this.mapSlots[i] = slot + 1;
+        if (2 * this.numGroups > this.mapSlots.length) growMap();
+        return slot;
+    }
+
+    private void growMap()
+    {
+        int capacity = 2 * this.mapSlots.length;
+        this.mapSlots = new int[capacity];
+        this.shift = 64 - Integer.numberOfTrailingZeros(capacity);
+        int mask = capacity - 1;
+        for (int slot = 0; slot < this.numGroups; slot++)
+        {
+            int i = home(this.groups[2 * slot]);
+            while (this.mapSlots[i] != 0) i = (i + 1) & mask;
+            this.mapSlots[i] = slot + 1;
+        }
+    }
+
+    public long estimatedBytes()
+    {
+        return footprint().total();
+    }
+
+    /**
+     *
+     * Return the estimated memory use. the entries holding kept items are reported as nodes,
+     * while the unused reserved entries, the group slots and the map are the per group overhead.
+     * complexity O(1)
+     *
+     */
+    public HeapFootprint footprint()
+    {
+        long nodeBytes = ENTRY_BYTES * this.numKept;
+        long regionBytes = HeapFootprint.align(HeapFootprint.ARRAY_HEADER_BYTES + 4L * this.keys.length)
+            + HeapFootprint.align(HeapFootprint.ARRAY_HEADER_BYTES + 8L * this.payloads.length);
+        return new HeapFootprint(
+            nodeBytes,
+            0,
+            0,
+            0,
+            ENGINE_BYTES
+                + regionBytes - nodeBytes
+                + HeapFootprint.align(HeapFootprint.ARRAY_HEADER_BYTES + 8L * this.groups.length)
+                + HeapFootprint.align(HeapFootprint.ARRAY_HEADER_BYTES + 4L * this.mapSlots.length));
+    }
+}
@@ -4,6 +4,11 @@
  * id2: 324207885
  */
 
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Heap
@@ -13,10 +18,13 @@
  * the possibility of not performing lazy decrease keys.
  *
  */
-public class Heap
+public class Heap implements HeapEngine
 {
     public final boolean lazyMelds;
     public final boolean lazyDecreaseKeys;
+    public final double consolidationFactor;
+    public final int markTolerance;
+    public final HeapNodePool pool;
     public HeapItem min;
     public int size;
     public int numTrees;
@@ -24,6 +32,19 @@ public class Heap
     public int totalLinks;
     public int totalCuts;
     public int totalHeapifyCosts;
+    private int payloadCount; //number of items inserted with a non null info
+    private long payloadChars; //total length of those infos
+    private IdIndex index; //created by the first insert with an id
+    private int keyOffset; //the key of an item is item.key + keyOffset
+
+    //a consolidated root list can hold about 1.44 * log2(size) trees, a lower factor would consolidate on almost every insert
+    static final double MIN_CONSOLIDATION_FACTOR = 1.5;
+
+    static final long NODE_BYTES = HeapFootprint.objectBytes(5 * HeapFootprint.REFERENCE_BYTES + 4 + 4);
+    static final long ITEM_BYTES = HeapFootprint.objectBytes(2 * HeapFootprint.REFERENCE_BYTES + 4);
+    static final long POOLED_ITEM_BYTES = HeapFootprint.objectBytes(2 * HeapFootprint.REFERENCE_BYTES + 4 + 4);
+    static final long INDEXED_ITEM_BYTES = HeapFootprint.objectBytes(2 * HeapFootprint.REFERENCE_BYTES + 4 + 8);
+    private static final long HEAP_BYTES = HeapFootprint.objectBytes(2 + 8 + 4 + 3 * HeapFootprint.REFERENCE_BYTES + 8 * 4 + 8);
     
     /**
      *
@@ -33,8 +54,68 @@ public class Heap
      */
     public Heap(boolean lazyMelds, boolean lazyDecreaseKeys)
     {
+        this(lazyMelds, lazyDecreaseKeys, 0);
+    }
+
+    /**
+     *
+     * Constructor to initialize an empty heap with a semi-lazy meld policy.
+     * with lazy melds, a consolidation is triggered only when numTrees goes above
+     * consolidationFactor * log2(size). a factor of 0 keeps melds fully lazy, otherwise
+     * the factor must be at least 1.5 so inserts stay O(1) amortized.
+     * the factor is ignored for non-lazy melds, which always consolidate.
+     * complexity O(1)
+     *
+     */
+    public Heap(boolean lazyMelds, boolean lazyDecreaseKeys, double consolidationFactor)
+    {
+        this(lazyMelds, lazyDecreaseKeys, consolidationFactor, 2);
+    }
+
+    /**
+     *
+     * Constructor to initialize an empty heap with a semi-lazy meld policy and a k-mark cut policy.
+     * with lazy decrease keys, a node is cut from its parent once it has lost markTolerance children.
+     * markTolerance = 2 is the classic Fibonacci heap rule, larger values cut less often.
+     * complexity O(1)
+     *
+     */
+    public Heap(boolean lazyMelds, boolean lazyDecreaseKeys, double consolidationFactor, int markTolerance)
+    {
+        this(lazyMelds, lazyDecreaseKeys, consolidationFactor, markTolerance, null);
+    }
+
+    /**
+     *
+     * Constructor to initialize an empty heap that takes its nodes from pool.
+     * nodes freed by deleteMin and delete are returned to the pool and reused by later inserts.
+     * complexity O(1)
+     *
+     */
+    public Heap(boolean lazyMelds, boolean lazyDecreaseKeys, HeapNodePool pool)
+    {
+        this(lazyMelds, lazyDecreaseKeys, 0, 2, pool);
+    }
+
+    /**
+     *
+     * Constructor to initialize an empty heap with every policy set explicitly.
+     * pool may be null, in which case every insert allocates a new node.
+     * complexity O(1)
+     *
+     */
+    public Heap(boolean lazyMelds, boolean lazyDecreaseKeys, double consolidationFactor, int markTolerance, HeapNodePool pool)
+    {
+        if (consolidationFactor != 0 && !(consolidationFactor >= MIN_CONSOLIDATION_FACTOR))
+        {
+            throw new IllegalArgumentException("consolidationFactor must be 0 or >= " + MIN_CONSOLIDATION_FACTOR);
+        }
+        if (markTolerance < 1) throw new IllegalArgumentException("markTolerance must be >= 1");
         this.lazyMelds = lazyMelds;
         this.lazyDecreaseKeys = lazyDecreaseKeys;
+        this.consolidationFactor = consolidationFactor;
+        this.markTolerance = markTolerance;
+        this.pool = pool;
         this.min = null;
         this.size = 0;
         this.numTrees = 0;
@@ -80,6 +161,7 @@ public class Heap
     private void successiveLink()
     {
         //create an array to store the trees by rank
+        //the size is the classic bound, it grows when markTolerance > 2 leaves a tree with a higher rank
         int ArraySize = (size==0) ? 1 : (int) (1.5* Math.ceil(Math.log(this.size)/Math.log(2))+2);
         HeapNode[] bucket =  new HeapNode[ArraySize];
         HeapNode x = this.min.node;
@@ -91,11 +173,13 @@ public class Heap
         {
             HeapNode y = x;
             x=x.next;
+            if (y.rank >= bucket.length) bucket = Arrays.copyOf(bucket, 2 * y.rank + 1);
             while (bucket[y.rank] != null)
             {
                 HeapNode other = bucket[y.rank];
                 bucket[y.rank] = null;
                 y = link(y, other);
+                if (y.rank == bucket.length) bucket = Arrays.copyOf(bucket, 2 * y.rank + 1);
             }
             bucket[y.rank] = y;
         }
@@ -182,20 +266,269 @@ public class Heap
      * pre: key > 0
      *
      * Insert (key,info) into the heap and return the newly generated HeapNode.
+     * with a pool, the node and its item are recycled from previously deleted ones.
      * for lazy meld complexity O(1)
      * for non-lazy meld complexity O(log n)
      */
      public HeapItem insert(int key, String info) 
      { 
-         // create a new heap with the same lazy melds and lazy decrease keys and insert the new node into it   
-         HeapNode newNode = new HeapNode(key, info);
-         Heap newHeap = new Heap(this.lazyMelds, this.lazyDecreaseKeys);
-         newHeap.min = newNode.item;
-         newHeap.size = 1;
-         newHeap.numTrees = 1;
-         meld(newHeap);
+         key = storedKey(key);
+         HeapNode newNode = (this.pool == null) ? new HeapNode(key, info) : this.pool.acquire(key, info);
+         this.size++;
+         countPayload(info, 1);
+         addTree(newNode);
          return newNode.item;
      }
+
+    /**
+     * 
+     * pre: item is not in a heap, item.key > 0
+     *
+     * Insert a caller constructed item, which lets callers keep their own data in a HeapItem subclass.
+     * the item gets a new node, it is never taken from the pool.
+     * item.key is read as a key and rebased by the key offset.
+     * for lazy meld complexity O(1)
+     * for non-lazy meld complexity O(log n)
+     */
+    public void insertItem(HeapItem item)
+    {
+        item.key = storedKey(item.key);
+        HeapNode newNode = new HeapNode(item);
+        if (item instanceof IndexedItem)
+        {
+            if (this.index == null) this.index = new IdIndex();
+            this.index.put(((IndexedItem) item).id, item);
+        }
+        this.size++;
+        countPayload(item.info, 1);
+        addTree(newNode);
+    }
+
+    /**
+     * 
+     * pre: key > 0, id is not in the heap
+     *
+     * Insert (key,info) under the caller supplied id and return the newly generated HeapItem.
+     * the item can later be found with containsId, decreaseKeyById and deleteById.
+     * indexed items are never taken from the pool.
+     * complexity as insert, plus O(1) expected for the index
+     */
+    public HeapItem insert(int key, String info, long id)
+    {
+        if (this.index == null) this.index = new IdIndex();
+        else if (this.index.get(id) != null) throw new IllegalArgumentException("id " + id + " is already in the heap");
+        HeapNode newNode = new HeapNode(new IndexedItem(null, storedKey(key), info, id));
+        this.index.put(id, newNode.item);
+        this.size++;
+        countPayload(info, 1);
+        addTree(newNode);
+        return newNode.item;
+    }
+
+    /**
+     * 
+     * Return whether an item with the given id is in the heap.
+     * complexity O(1) expected
+     * 
+     */
+    public boolean containsId(long id)
+    {
+        return this.index != null && this.index.get(id) != null;
+    }
+
+    /**
+     * 
+     * Return the item inserted with the given id, or null if it is not in the heap.
+     * complexity O(1) expected
+     * 
+     */
+    public HeapItem findById(long id)
+    {
+        return (this.index == null) ? null : this.index.get(id);
+    }
+
+    /**
+     * 
+     * pre: 0<=diff<=key of the item
+     * Decrease the key of the item with the given id by diff.
+     * returns false if no item with this id is in the heap.
+     * complexity as decreaseKey, plus O(1) expected for the lookup
+     * 
+     */
+    public boolean decreaseKeyById(long id, int diff)
+    {
+        HeapItem x = findById(id);
+        if (x == null) return false;
+        decreaseKey(x, diff);
+        return true;
+    }
+
+    /**
+     * 
+     * Delete the item with the given id.
+     * returns false if no item with this id is in the heap.
+     * complexity as delete, plus O(1) expected for the lookup
+     * 
+     */
+    public boolean deleteById(long id)
+    {
+        HeapItem x = findById(id);
+        if (x == null) return false;
+        delete(x);
+        return true;
+    }
+
+    /**
+     * 
+     * Add delta to the key of every item in the heap by moving the key offset.
+     * the order of the items does not change, only keys inserted later compare differently.
+     * throws ArithmeticException if the offset overflows.
+     * complexity O(1)
+     * 
+     */
+    public void shiftKeys(int delta)
+    {
+        this.keyOffset = Math.addExact(this.keyOffset, delta);
+    }
+
+    /**
+     * 
+     * Return the key offset. with a non zero offset, item.key holds the key relative to it.
+     * complexity O(1)
+     * 
+     */
+    public int keyOffset()
+    {
+        return this.keyOffset;
+    }
+
+    /**
+     * 
+     * pre: x is in this heap
+     * Return the key of x, taking the key offset into account.
+     * complexity O(1)
+     * 
+     */
+    public int keyOf(HeapItem x)
+    {
+        return x.key + this.keyOffset;
+    }
+
+    /**
+     * 
+     * Return the min key, taking the key offset into account, or -1 if the heap is empty.
+     * complexity O(1)
+     * 
+     */
+    public int findMinKey()
+    {
+        return (this.min == null) ? -1 : this.min.key + this.keyOffset;
+    }
+
+    /**
+     * 
+     * Fold the key offset into the keys of all items, so item.key is the key again.
+     * complexity O(n)
+     * 
+     */
+    public void normalizeKeys()
+    {
+        rebase(this.keyOffset);
+        this.keyOffset = 0;
+    }
+
+    /**
+     * 
+     * return the stored key of key, relative to the key offset.
+     * throws ArithmeticException if it does not fit in an int.
+     * complexity O(1)
+     * 
+     */
+    private int storedKey(int key)
+    {
+        return (this.keyOffset == 0) ? key : Math.toIntExact((long) key - this.keyOffset);
+    }
+
+    /**
+     * 
+     * add delta to the stored key of every item, walking the trees through the
+     * parent, child and next pointers without a stack.
+     * complexity O(n)
+     * 
+     */
+    private void rebase(int delta)
+    {
+        if (this.min == null || delta == 0) return;
+        HeapNode root = this.min.node;
+        for (HeapNode node = root; node != null; node = nextInPreorder(node, root))
+        {
+            node.item.key = Math.addExact(node.item.key, delta);
+        }
+    }
+
+    /**
+     * 
+     * clear the marks of every node, for a heap melded into a heap without lazy decrease keys.
+     * complexity O(n)
+     * 
+     */
+    private void clearMarks()
+    {
+        if (this.min == null) return;
+        HeapNode root = this.min.node;
+        for (HeapNode node = root; node != null; node = nextInPreorder(node, root))
+        {
+            node.lostChildren = 0;
+        }
+        this.numMarkedNodes = 0;
+    }
+
+    /**
+     * 
+     * return the node after node in a preorder walk of the forest whose root list starts at root,
+     * or null at the end. the walk uses the parent, child and next pointers, without a stack.
+     * complexity O(1) amortized over a full walk
+     * 
+     */
+    static HeapNode nextInPreorder(HeapNode node, HeapNode root)
+    {
+        if (node.child != null) return node.child;
+        //move to the next sibling, climbing up while the sibling list is exhausted
+        while (node != null)
+        {
+            HeapNode first = (node.parent == null) ? root : node.parent.child;
+            if (node.next != first) return node.next;
+            node = node.parent;
+        }
+        return null;
+    }
+
+    /**
+     * 
+     * pre: node is a single tree that is not in the root list and its size is already counted.
+     * add the tree to the root list, the same way as melding a heap that holds only this tree.
+     * for lazy meld complexity O(1)
+     * for non-lazy meld complexity O(log n)
+     * 
+     */
+    private void addTree(HeapNode node)
+    {
+        this.numTrees++;
+        if (this.min == null)
+        {
+            this.min = node.item;
+            return;
+        }
+        concatenateToRootList(node.item);
+        if (node.item.key < this.min.key)
+        {
+            this.min = node.item;
+        }
+        if (!this.lazyMelds || exceedsTreeThreshold())
+        {
+            successiveLink();
+        }
+    }
      
     
      /**
@@ -227,6 +560,7 @@ public class Heap
 
         //update the size
         this.size--;
+        HeapNode removed = this.min.node;
         
         //handle the case where the heap has only one node
         if (this.min.node.next == this.min.node && this.min.node.child == null)
@@ -234,6 +568,7 @@ public class Heap
             this.min = null;
             this.numTrees = 0;
             this.numMarkedNodes = 0;
+            release(removed);
             return;
         }
 
@@ -246,9 +581,9 @@ public class Heap
            do
            {
                 current.parent = null;
-                if (current.marked)
+                if (current.lostChildren > 0)
                 {
-                    current.marked = false;
+                    current.lostChildren = 0;
                     this.numMarkedNodes--;
                 }
                 current = current.next;
@@ -263,11 +598,77 @@ public class Heap
         this.min.node.next.prev = preMin;
         this.min = preMin.item;  //set a temporary min node to the previous min node to have a reference to the root list
         successiveLink(); //successive link is updated the min node and the number of trees
+        release(removed);
+    }
+
+    /**
+     * 
+     * detach a deleted node from its item so the stale handle is ignored by decreaseKey,
+     * and return the node to the pool if there is one.
+     * complexity O(1)
+     * 
+     */
+    private void release(HeapNode node)
+    {
+        countPayload(node.item.info, -1);
+        if (node.item instanceof IndexedItem) this.index.remove(((IndexedItem) node.item).id);
+        node.item.node = null;
+        if (this.pool != null) this.pool.release(node);
+    }
+
+    /**
+     * 
+     * Return whether x is still in a heap and, for pooled items, whether it was not recycled
+     * since generation was read from it.
+     * complexity O(1)
+     * 
+     */
+    public static boolean isLive(HeapItem x, int generation)
+    {
+        if (x == null || x.node == null) return false;
+        return !(x instanceof PooledItem) || ((PooledItem) x).generation == generation;
+    }
+
+    /**
+     * 
+     * Return the generation of x, 0 for items that do not come from a pool.
+     * complexity O(1)
+     * 
+     */
+    public static int generationOf(HeapItem x)
+    {
+        return (x instanceof PooledItem) ? ((PooledItem) x).generation : 0;
+    }
+
+    /**
+     * 
+     * Decrease the key of x by diff after checking that the handle is not stale.
+     * throws IllegalStateException if x was deleted or recycled since generation was read.
+     * complexity as decreaseKey
+     * 
+     */
+    public void decreaseKey(HeapItem x, int generation, int diff)
+    {
+        if (!isLive(x, generation)) throw new IllegalStateException("stale heap item handle");
+        decreaseKey(x, diff);
+    }
+
+    /**
+     * 
+     * Delete x after checking that the handle is not stale.
+     * throws IllegalStateException if x was deleted or recycled since generation was read.
+     * complexity as delete
+     * 
+     */
+    public void delete(HeapItem x, int generation)
+    {
+        if (!isLive(x, generation)) throw new IllegalStateException("stale heap item handle");
+        delete(x);
     }
     
     /**
      * 
-     * cascading cuts to fix the heap by cutting the node and its parent if the node is marked.
+     * cascading cuts to fix the heap by cutting the node and its parent if the parent has lost markTolerance children.
      * called only with lazy decrease keys where height of the tree is at most n.
      * with lazy melds complexity O(n) because the height of the tree is at most n.
      * with non-lazy melds complexity O(n*log n) because the height of the tree is at most n and the cost of melding is log n.
@@ -298,25 +699,28 @@ public class Heap
 
         //update the rank of the parent and the node
         parent.rank--;
-        if (node.marked)
+        if (node.lostChildren > 0)
         {
-            node.marked = false;
+            node.lostChildren = 0;
             this.numMarkedNodes--;
         }
         
         node.parent = null;
-        this.numTrees++;
         node.prev = node;
         node.next = node;
-       Heap newHeap = new Heap(this.lazyMelds, this.lazyDecreaseKeys);
-       newHeap.min = node.item;
-       newHeap.numTrees = 1;
-       meld(newHeap);
+        addTree(node);
         
-        if (parent.marked) cascadingCuts(parent);
-        else if (parent.parent != null) {
-            parent.marked = true;
-            this.numMarkedNodes++;
+        //roots are never marked, a non root parent counts as marked while it has lost at least one child
+        if (parent.parent != null)
+        {
+            parent.lostChildren++;
+            if (parent.lostChildren >= this.markTolerance)
+            {
+                if (parent.lostChildren > 1) this.numMarkedNodes--;
+                parent.lostChildren = 0;
+                cascadingCuts(parent);
+            }
+            else if (parent.lostChildren == 1) this.numMarkedNodes++;
         }
     }
     
@@ -347,7 +751,7 @@ public class Heap
     
     /**
      * 
-     * pre: 0<=diff<=x.key
+     * pre: 0<=diff<=keyOf(x)
      * Decrease the key of x by diff and fix the heap.
      * with lazy decrease keys calls for cascading cuts which has complexity O(n) or O(nlog n) depending on lazy meld.
      * with non-lazy decrease keys calls for heapify up which has complexity O(log n).
@@ -357,14 +761,23 @@ public class Heap
     public void decreaseKey(HeapItem x, int diff) 
     {    
         if (x == null || diff < 0 || x.node == null) return;
-        x.key -= diff;
+        lowerKey(x, x.key - diff);
+    }
+
+    /**
+     * 
+     * set the stored key of a live item x to newKey <= x.key and fix the heap.
+     * 
+     */
+    private void lowerKey(HeapItem x, int newKey)
+    {
+        x.key = newKey;
         if (x.node.parent != null && x.key < x.node.parent.item.key)
         {
             if (this.lazyDecreaseKeys) cascadingCuts(x.node);
             else heapifyUp(x.node);
         }
         if (this.min.key > x.key) this.min = x;
-    
     }
 
     /**
@@ -376,22 +789,47 @@ public class Heap
      */
     public void delete(HeapItem x) 
     {    
-        this.decreaseKey(x,x.key+1);
+        if (x == null || x.node == null) return; //already deleted
+        //a stored key can already be Integer.MIN_VALUE, so x is moved to a root without comparing keys
+        x.key = Integer.MIN_VALUE;
+        if (x.node.parent != null)
+        {
+            if (this.lazyDecreaseKeys) cascadingCuts(x.node);
+            else heapifyToRoot(x.node);
+        }
+        //with eager melds the cuts consolidate, which can link x below a root with an equal key
+        if (x.node.parent != null) heapifyToRoot(x.node);
+        this.min = x;
         this.deleteMin();
     }
 
 
     /**
      * 
-     * Meld the heap with heap2
-     * pre: heap2.lazyMelds = this.lazyMelds AND heap2.lazyDecreaseKeys = this.lazyDecreaseKeys
+     * Meld the heap with heap2, which may have been created with other policies.
+     * the melded heap follows the policies of this heap: it consolidates once if this heap
+     * does not use lazy melds, and the marks of heap2 are cleared in O(heap2.size) if this
+     * heap does not use lazy decrease keys, since heapifyUp never reads them.
+     * nodes melded from heap2 are released to the pool of this heap once they are deleted.
+     * pre: the ids inserted into heap2 are not in this heap
+     * when the key offsets differ, the keys of heap2 are rebased to this offset in O(heap2.size)
      * complexity O(1) for lazy melds
      * complexity O(log n) for non-lazy melds 
+     * with a consolidation factor, lazy melds are O(1) amortized and consolidate once numTrees passes the threshold
      * 
      *
      */
     public void meld(Heap heap2)   
     {
+        if (heap2.keyOffset != this.keyOffset)
+        {
+            heap2.rebase(Math.subtractExact(heap2.keyOffset, this.keyOffset));
+            heap2.keyOffset = this.keyOffset;
+        }
+        if (!this.lazyDecreaseKeys && heap2.numMarkedNodes > 0)
+        {
+            heap2.clearMarks();
+        }
         //update the total stats
         this.totalCuts += heap2.totalCuts;
         this.totalLinks += heap2.totalLinks;
@@ -399,6 +837,14 @@ public class Heap
         this.numMarkedNodes += heap2.numMarkedNodes;
         this.numTrees += heap2.numTrees;
         this.size += heap2.size;
+        this.payloadCount += heap2.payloadCount;
+        this.payloadChars += heap2.payloadChars;
+        if (heap2.index != null && heap2.index.size() > 0)
+        {
+            //move the ids of heap2, O(capacity of its index)
+            if (this.index == null) this.index = new IdIndex();
+            heap2.index.moveAllTo(this.index);
+        }
         //handle the case where one of the heaps is empty
         if (heap2.min == null)
         {
@@ -416,14 +862,474 @@ public class Heap
         {
             this.min = heap2.min;
         }
-        //if lazy melds is not enabled, perform successive link
-        if (!this.lazyMelds)
+        //if lazy melds is not enabled or the root list grew too long, perform successive link
+        if (!this.lazyMelds || exceedsTreeThreshold())
         {
             successiveLink();
         }  
     }
+
+    /**
+     * 
+     * Return a cursor over the items in key order that leaves the heap untouched.
+     * reading the first k items costs O(numTrees + k log n log k).
+     * the heap must not be modified while the cursor is in use.
+     * complexity O(numTrees)
+     * 
+     */
+    public HeapCursor cursor()
+    {
+        return new HeapCursor((this.min == null) ? null : this.min.node);
+    }
+
+    /**
+     * 
+     * Return an unordered spliterator over the items, which reports SIZED until it is split.
+     * the heap must not be modified while the spliterator is in use.
+     * complexity O(1)
+     * 
+     */
+    public Spliterator<HeapItem> spliterator()
+    {
+        return new HeapSpliterator((this.min == null) ? null : this.min.node, this.numTrees, this.size, true);
+    }
+
+    /**
+     * 
+     * Return a stream over the items in no particular order. the stream can be made parallel,
+     * it is split along the root list and then along the children of single trees.
+     * complexity O(1)
+     * 
+     */
+    public Stream<HeapItem> stream()
+    {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * 
+     * Delete the items items[from], ..., items[to - 1] in one batch. items that are null or
+     * no longer in the heap are skipped. every item is moved to a root as delete does, by a cut
+     * that marks its parent with lazy decrease keys and by swapping it up otherwise, then its
+     * children join the root list. the heap consolidates at most once: only when the min was
+     * deleted, or when the meld policy asks for it.
+     * complexity O(k log n) amortized for k deleted items, plus one consolidation
+     * 
+     */
+    public void deleteAll(HeapItem[] items, int from, int to)
+    {
+        boolean minDeleted = false;
+        for (int i = from; i < to; i++)
+        {
+            HeapItem x = items[i];
+            if (x == null || x.node == null) continue;
+            if (x.node.parent != null)
+            {
+                if (this.lazyDecreaseKeys)
+                {
+                    cascadingCutToRoot(x.node);
+                }
+                else
+                {
+                    heapifyToRoot(x.node);
+                    //the item swapped down may be the min, which must stay a root
+                    if (this.min.node.parent != null) this.min = x;
+                }
+            }
+            if (x == this.min) minDeleted = true;
+            removeRoot(x.node);
+        }
+        if (this.min == null)
+        {
+            this.numTrees = 0;
+            this.numMarkedNodes = 0;
+        }
+        else if (minDeleted || !this.lazyMelds || exceedsTreeThreshold())
+        {
+            successiveLink();
+        }
+    }
+
+    /**
+     * 
+     * pre: node is a root
+     * remove node from the heap, putting its children in its place in the root list.
+     * if node held the min, the min is left at a neighbouring root until the next consolidation.
+     * complexity O(rank)
+     * 
+     */
+    private void removeRoot(HeapNode node)
+    {
+        HeapNode child = node.child;
+        if (child != null)
+        {
+            HeapNode current = child;
+            do
+            {
+                current.parent = null;
+                if (current.lostChildren > 0)
+                {
+                    current.lostChildren = 0;
+                    this.numMarkedNodes--;
+                }
+                current = current.next;
+            } while (current != child);
+        }
+        if (node.next == node)
+        {
+            this.min = (child == null) ? null : child.item;
+        }
+        else
+        {
+            HeapNode prev = node.prev;
+            HeapNode next = node.next;
+            if (child == null)
+            {
+                prev.next = next;
+                next.prev = prev;
+            }
+            else
+            {
+                HeapNode last = child.prev;
+                prev.next = child;
+                child.prev = prev;
+                last.next = next;
+                next.prev = last;
+            }
+            if (this.min == node.item) this.min = next.item;
+        }
+        this.numTrees += node.rank - 1;
+        node.child = null;
+        node.rank = 0;
+        this.size--;
+        release(node);
+    }
+
+    /**
+     * 
+     * Return whether some item has a key below threshold.
+     * complexity O(1)
+     * 
+     */
+    public boolean anyBelow(int threshold)
+    {
+        return this.min != null && this.min.key < (long) threshold - this.keyOffset;
+    }
+
+    /**
+     * 
+     * Return the number of items with a key below threshold.
+     * subtrees whose root is at or above threshold are skipped.
+     * complexity O(numTrees + k log n) for k matching items
+     * 
+     */
+    public int countBelow(int threshold)
+    {
+        long limit = (long) threshold - this.keyOffset;
+        if (!anyBelow(threshold)) return 0;
+        int count = 0;
+        HeapNode root = this.min.node;
+        for (HeapNode node = root; node != null; node = nextBelow(node, root, limit))
+        {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 
+     * Apply action to every item with a key below threshold, in no particular order.
+     * the heap must not be modified by action.
+     * complexity O(numTrees + k log n) for k matching items
+     * 
+     */
+    public void forEachBelow(int threshold, Consumer<HeapItem> action)
+    {
+        long limit = (long) threshold - this.keyOffset;
+        if (!anyBelow(threshold)) return;
+        HeapNode root = this.min.node;
+        for (HeapNode node = root; node != null; node = nextBelow(node, root, limit))
+        {
+            action.accept(node.item);
+        }
+    }
+
+    /**
+     * 
+     * pre: node.item.key < limit
+     * return the node after node in a preorder walk of the nodes with a stored key below limit,
+     * in the forest whose root list starts at root, or null at the end.
+     * by heap order, a node at or above limit is skipped with its whole subtree.
+     * complexity O(rank) amortized over a full walk
+     * 
+     */
+    private static HeapNode nextBelow(HeapNode node, HeapNode root, long limit)
+    {
+        HeapNode child = node.child;
+        if (child != null)
+        {
+            HeapNode current = child;
+            do
+            {
+                if (current.item.key < limit) return current;
+                current = current.next;
+            } while (current != child);
+        }
+        //move to the next matching sibling, climbing up while the sibling list is exhausted
+        while (node != null)
+        {
+            HeapNode first = (node.parent == null) ? root : node.parent.child;
+            for (HeapNode sibling = node.next; sibling != first; sibling = sibling.next)
+            {
+                if (sibling.item.key < limit) return sibling;
+            }
+            node = node.parent;
+        }
+        return null;
+    }
+
+    /**
+     * 
+     * Move every item whose key is below threshold into a new heap with the same policies and return it.
+     * the items below threshold form the top of each tree, so their descendants at or above
+     * threshold are whole subtrees, which are cut and left as roots here.
+     * the moved nodes join the new heap as single node roots with their marks cleared, and the
+     * new heap consolidates once, so it keeps the rank bound and, without lazy decrease keys,
+     * the binomial shape. ids and payloads move with their items.
+     * this heap consolidates once if it does not use lazy melds.
+     * complexity O(numTrees + k) amortized for k moved items
+     * 
+     */
+    public Heap extractBelow(int threshold)
+    {
+        Heap below = new Heap(this.lazyMelds, this.lazyDecreaseKeys, this.consolidationFactor, this.markTolerance, this.pool);
+        below.keyOffset = this.keyOffset;
+        long limit = (long) threshold - this.keyOffset; //the stored keys to move are below limit
+        if (this.min == null || this.min.key >= limit) return below;
+        HeapNode x = this.min.node;
+        x.prev.next = null;
+        this.min = null;
+        this.numTrees = 0;
+        HeapNode[] stack = new HeapNode[16];
+        while (x != null)
+        {
+            HeapNode nextRoot = x.next;
+            x.next = x;
+            x.prev = x;
+            if (x.item.key >= limit)
+            {
+                this.numTrees++;
+                concatenateToRootList(x.item);
+                if (x.item.key < this.min.key) this.min = x.item;
+                x = nextRoot;
+                continue;
+            }
+            //walk the part of the tree below threshold, cutting the children at or above it
+            int top = 0;
+            stack[top++] = x;
+            while (top > 0)
+            {
+                HeapNode node = stack[--top];
+                moveItemTo(node.item, below);
+                if (node.lostChildren > 0)
+                {
+                    node.lostChildren = 0;
+                    this.numMarkedNodes--;
+                }
+                HeapNode child = node.child;
+                for (int i = node.rank; i > 0; i--)
+                {
+                    HeapNode nextChild = child.next;
+                    if (child.item.key >= limit)
+                    {
+                        cutToRoot(child);
+                    }
+                    else
+                    {
+                        if (top == stack.length) stack = Arrays.copyOf(stack, 2 * top);
+                        stack[top++] = child;
+                    }
+                    child = nextChild;
+                }
+                //the moved node joins the new heap as a single node root
+                node.child = null;
+                node.parent = null;
+                node.rank = 0;
+                node.next = node;
+                node.prev = node;
+                below.numTrees++;
+                below.concatenateToRootList(node.item);
+                if (node.item.key < below.min.key) below.min = node.item;
+            }
+            x = nextRoot;
+        }
+        if (this.min != null && (!this.lazyMelds || exceedsTreeThreshold())) successiveLink();
+        below.successiveLink();
+        return below;
+    }
+
+    /**
+     * 
+     * move the size, payload and id of item to heap2, the node itself is linked by the caller.
+     * complexity O(1) expected
+     * 
+     */
+    private void moveItemTo(HeapItem item, Heap heap2)
+    {
+        this.size--;
+        heap2.size++;
+        countPayload(item.info, -1);
+        heap2.countPayload(item.info, 1);
+        if (item instanceof IndexedItem)
+        {
+            long id = ((IndexedItem) item).id;
+            this.index.remove(id);
+            if (heap2.index == null) heap2.index = new IdIndex();
+            heap2.index.put(id, item);
+        }
+    }
+
+    /**
+     * 
+     * cut node from its parent and add it to the root list, without marking the parent.
+     * complexity O(1)
+     * 
+     */
+    private void cutToRoot(HeapNode node)
+    {
+        HeapNode parent = node.parent;
+        this.totalCuts++;
+        if (parent.rank > 1)
+        {
+            node.prev.next = node.next;
+            node.next.prev = node.prev;
+            if (parent.child == node) parent.child = node.next;
+        }
+        else
+        {
+            parent.child = null;
+        }
+        parent.rank--;
+        if (node.lostChildren > 0)
+        {
+            node.lostChildren = 0;
+            this.numMarkedNodes--;
+        }
+        node.parent = null;
+        node.prev = node;
+        node.next = node;
+        this.numTrees++;
+        concatenateToRootList(node.item);
+        if (node.item.key < this.min.key) this.min = node.item;
+    }
+
+    /**
+     * 
+     * cut node to the root list and mark its parent as cascadingCuts does, cutting every
+     * ancestor that reaches markTolerance lost children, but without consolidating.
+     * complexity O(1) amortized
+     * 
+     */
+    private void cascadingCutToRoot(HeapNode node)
+    {
+        HeapNode parent = node.parent;
+        cutToRoot(node);
+        while (parent.parent != null)
+        {
+            parent.lostChildren++;
+            if (parent.lostChildren < this.markTolerance)
+            {
+                if (parent.lostChildren == 1) this.numMarkedNodes++;
+                return;
+            }
+            if (parent.lostChildren > 1) this.numMarkedNodes--;
+            parent.lostChildren = 0;
+            node = parent;
+            parent = node.parent;
+            cutToRoot(node);
+        }
+    }
+
+    /**
+     * 
+     * swap the item of node up to the root of its tree without comparing keys.
+     * complexity O(log n) in a binomial tree
+     * 
+     */
+    private void heapifyToRoot(HeapNode node)
+    {
+        HeapItem item = node.item;
+        while (node.parent != null)
+        {
+            this.totalHeapifyCosts++;
+            HeapNode parent = node.parent;
+            node.item = parent.item;
+            node.item.node = node;
+            node = parent;
+        }
+        node.item = item;
+        item.node = node;
+    }
+
+    /**
+     * 
+     * check whether the root list is longer than the semi-lazy threshold
+     * consolidationFactor * log2(size). always false when the factor is 0.
+     * complexity O(1)
+     * 
+     */
+    private boolean exceedsTreeThreshold()
+    {
+        if (this.consolidationFactor == 0) return false;
+        int log2 = 32 - Integer.numberOfLeadingZeros(this.size);
+        return this.numTrees > this.consolidationFactor * Math.max(1, log2);
+    }
     
     
+    /**
+     * 
+     * add (sign = 1) or remove (sign = -1) a payload from the footprint counters.
+     * complexity O(1)
+     * 
+     */
+    private void countPayload(String info, int sign)
+    {
+        if (info == null) return;
+        this.payloadCount += sign;
+        this.payloadChars += sign * info.length();
+    }
+
+    /**
+     * 
+     * Return the estimated number of bytes used by the heap.
+     * complexity O(1)
+     * 
+     */
+    public long estimatedBytes()
+    {
+        return footprint().total();
+    }
+
+    /**
+     * 
+     * Return the estimated memory use of the heap, computed from maintained counters.
+     * payloads are counted by their length at insert time, free nodes of the pool are not counted.
+     * complexity O(1)
+     * 
+     */
+    public HeapFootprint footprint()
+    {
+        long itemBytes = (this.pool == null) ? ITEM_BYTES : POOLED_ITEM_BYTES;
+        int indexed = (this.index == null) ? 0 : this.index.size();
+        long indexBytes = (this.index == null) ? 0 : this.index.estimatedBytes();
+        return new HeapFootprint(
+            this.size * NODE_BYTES,
+            (this.size - indexed) * itemBytes + indexed * INDEXED_ITEM_BYTES,
+            HeapFootprint.stringBytes(this.payloadCount, this.payloadChars),
+            HeapFootprint.consolidationBufferBytes(this.size),
+            HEAP_BYTES + indexBytes);
+    }
+
     /**
      * 
      * Return the number of elements in the heap
@@ -507,17 +1413,23 @@ public class Heap
         public HeapNode prev;
         public HeapNode parent;
         public int rank;
-        public boolean marked; //whether the node's child has been cut 
+        public int lostChildren; //number of children cut since the node was linked, the node is marked while it is positive
         
         public HeapNode(int key, String info)
         {
-            this.item = new HeapItem(this,key, info); //create a new heap item with the node and the key and info
+            this(new HeapItem(null, key, info)); //create a new heap item with the node and the key and info
+        }
+
+        public HeapNode(HeapItem item)
+        {
+            this.item = item;
+            item.node = this;
             this.child = null;
             this.next = this;
             this.prev = this;
             this.parent = null;
             this.rank = 0;
-            this.marked = false;
+            this.lostChildren = 0;
         }
     }
     /**
@@ -534,5 +1446,31 @@ public class Heap
             this.key = key;
             this.info = info;
         }
-    }   
+    }
+
+    /**
+     * Class implementing an item inserted with a caller supplied id.
+     *  
+     */
+    public static class IndexedItem extends HeapItem{
+        public final long id;
+        public IndexedItem(HeapNode node, int key, String info, long id)
+        {
+            super(node, key, info);
+            this.id = id;
+        }
+    }
+
+    /**
+     * Class implementing an item that belongs to a HeapNodePool.
+     * the generation is incremented every time the item is recycled.
+     *  
+     */
+    public static class PooledItem extends HeapItem{
+        public int generation;
+        public PooledItem(HeapNode node, int key, String info)
+        {
+            super(node, key, info);
+        }
+    }
 }
\ No newline at end of file
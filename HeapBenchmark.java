@@ -0,0 +1,503 @@
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * HeapBenchmark
+ *
+ * Micro benchmarks for the heap engines.
+ * Every benchmark runs a few warmup rounds before the measured round and prints
+ * the elapsed time together with the heap counters.
+ * Run with a benchmark name to run only that benchmark, or with no arguments to run all of them.
+ * The topK benchmark takes the stream length as a second argument.
+ *
+ */
+public class HeapBenchmark
+{
+    private static final int WARMUP_ROUNDS = 3;
+
+    public static void main(String[] args)
+    {
+        String only = args.length > 0 ? args[0] : null;
+        if (only == null || only.equals("markTolerance")) benchMarkTolerance();
+        if (only == null || only.equals("engines")) benchEngines();
+        if (only == null || only.equals("rootArray")) benchRootArray();
+        if (only == null || only.equals("pool")) benchPool();
+        if (only == null || only.equals("topK")) benchTopK(args.length > 1 ? Long.parseLong(args[1]) : 10000000L);
+        if (only == null || only.equals("window")) benchWindow();
+        if (only == null || only.equals("dijkstra")) benchDijkstra();
+        if (only == null || only.equals("prim")) benchPrim();
+    }
+
+    /**
+     *
+     * Minimum spanning forest of a random undirected graph with 1000000 vertices and
+     * 5000000 edges, stored in both directions as 10^7 adjacency entries, for every
+     * Heap mode and for the array root engine.
+     *
+     */
+    private static void benchPrim()
+    {
+        int n = 1000000;
+        int edges = 5000000;
+        System.out.println("== prim: random undirected graph n=" + n + ", " + edges + " edges (" + 2 * edges + " adjacency entries) ==");
+        int[][] graph = randomUndirectedGraph(n, edges, 42);
+        Prim prim = new Prim(graph[0], graph[1], graph[2]);
+        boolean[][] modes = {{true, true}, {true, false}, {false, true}, {false, false}};
+        for (int round = 0; round < WARMUP_ROUNDS; round++)
+        {
+            for (boolean[] mode : modes) prim.run(mode[0], mode[1]);
+        }
+        long reference = -1;
+        for (boolean[] mode : modes)
+        {
+            Heap heap = new Heap(mode[0], mode[1]);
+            long start = System.nanoTime();
+            Prim.Result result = prim.run(heap);
+            long ms = (System.nanoTime() - start) / 1000000;
+            if (reference < 0) reference = result.totalWeight;
+            System.out.println(String.format("lazyMelds=%-5b lazyDecreaseKeys=%-5b %6d ms  weight=%d links=%d cuts=%d heapify=%d%s",
+                mode[0], mode[1], ms, result.totalWeight, heap.totalLinks(), heap.totalCuts(), heap.totalHeapifyCosts(),
+                result.totalWeight == reference ? "" : "  WEIGHT DIFFERS"));
+        }
+        ArrayRootFibHeap arrayRoot = new ArrayRootFibHeap();
+        long start = System.nanoTime();
+        Prim.Result result = prim.run(arrayRoot);
+        long ms = (System.nanoTime() - start) / 1000000;
+        System.out.println(String.format("ArrayRootFibHeap                      %6d ms  weight=%d links=%d cuts=%d%s",
+            ms, result.totalWeight, arrayRoot.totalLinks(), arrayRoot.totalCuts(), result.totalWeight == reference ? "" : "  WEIGHT DIFFERS"));
+    }
+
+    /**
+     *
+     * Return {offsets, targets, weights} of a random undirected graph in compressed sparse row form,
+     * where every edge is stored from both endpoints, with weights in [1, 1000].
+     *
+     */
+    static int[][] randomUndirectedGraph(int n, int edges, long seed)
+    {
+        Random rand = new Random(seed);
+        int[] ends = new int[2 * edges];
+        int[] edgeWeights = new int[edges];
+        int[] offsets = new int[n + 1];
+        for (int e = 0; e < edges; e++)
+        {
+            ends[2 * e] = rand.nextInt(n);
+            ends[2 * e + 1] = rand.nextInt(n);
+            edgeWeights[e] = 1 + rand.nextInt(1000);
+            offsets[ends[2 * e] + 1]++;
+            offsets[ends[2 * e + 1] + 1]++;
+        }
+        for (int v = 0; v < n; v++) offsets[v + 1] += offsets[v];
+        int[] fill = Arrays.copyOf(offsets, n);
+        int[] targets = new int[2 * edges];
+        int[] weights = new int[2 * edges];
+        for (int e = 0; e < edges; e++)
+        {
+            int a = ends[2 * e];
+            int b = ends[2 * e + 1];
+            int slot = fill[a]++;
+            targets[slot] = b;
+            weights[slot] = edgeWeights[e];
+            slot = fill[b]++;
+            targets[slot] = a;
+            weights[slot] = edgeWeights[e];
+        }
+        return new int[][] {offsets, targets, weights};
+    }
+
+    /**
+     *
+     * Shortest paths on a random graph with 500000 vertices and 5000000 edges,
+     * once for every lazyMelds / lazyDecreaseKeys mode.
+     *
+     */
+    private static void benchDijkstra()
+    {
+        int n = 500000;
+        int m = 5000000;
+        System.out.println("== dijkstra: random graph n=" + n + ", m=" + m + " ==");
+        int[][] graph = randomGraph(n, m, 42);
+        Dijkstra dijkstra = new Dijkstra(graph[0], graph[1], graph[2]);
+        boolean[][] modes = {{true, true}, {true, false}, {false, true}, {false, false}};
+        for (int round = 0; round < WARMUP_ROUNDS; round++)
+        {
+            for (boolean[] mode : modes) dijkstra.run(round, mode[0], mode[1]);
+        }
+        int[] reference = null;
+        for (boolean[] mode : modes)
+        {
+            long start = System.nanoTime();
+            Dijkstra.Result result = dijkstra.run(0, mode[0], mode[1]);
+            long ms = (System.nanoTime() - start) / 1000000;
+            if (reference == null) reference = result.distances;
+            System.out.println(String.format("lazyMelds=%-5b lazyDecreaseKeys=%-5b %6d ms  links=%d cuts=%d heapify=%d%s",
+                mode[0], mode[1], ms, result.totalLinks, result.totalCuts, result.totalHeapifyCosts,
+                Arrays.equals(reference, result.distances) ? "" : "  DISTANCES DIFFER"));
+        }
+    }
+
+    /**
+     *
+     * Return {offsets, targets, weights} of a random directed graph in compressed sparse row form,
+     * with weights in [1, 1000].
+     *
+     */
+    static int[][] randomGraph(int n, int m, long seed)
+    {
+        Random rand = new Random(seed);
+        int[] sources = new int[m];
+        int[] offsets = new int[n + 1];
+        for (int e = 0; e < m; e++)
+        {
+            sources[e] = rand.nextInt(n);
+            offsets[sources[e] + 1]++;
+        }
+        for (int v = 0; v < n; v++) offsets[v + 1] += offsets[v];
+        int[] fill = Arrays.copyOf(offsets, n);
+        int[] targets = new int[m];
+        int[] weights = new int[m];
+        for (int e = 0; e < m; e++)
+        {
+            int slot = fill[sources[e]]++;
+            targets[slot] = rand.nextInt(n);
+            weights[slot] = 1 + rand.nextInt(1000);
+        }
+        return new int[][] {offsets, targets, weights};
+    }
+
+    /**
+     *
+     * Rolling min over a high frequency stream: 8 samples per time unit and a window
+     * of 10000 time units, expiring every time unit. SlidingWindowMin expires in batches,
+     * the baseline deletes every expired handle on its own.
+     *
+     */
+    private static void benchWindow()
+    {
+        int ticks = 1000000;
+        System.out.println("== window: " + ticks + " ticks, 8 samples per tick, window 10000 ticks ==");
+        for (int round = 0; round < WARMUP_ROUNDS; round++)
+        {
+            windowRound(ticks / 10);
+            perItemWindowRound(ticks / 10);
+        }
+        long start = System.nanoTime();
+        long batchSum = windowRound(ticks);
+        long batchMs = (System.nanoTime() - start) / 1000000;
+        start = System.nanoTime();
+        long perItemSum = perItemWindowRound(ticks);
+        long perItemMs = (System.nanoTime() - start) / 1000000;
+        System.out.println(String.format("batch expiry %6d ms, per item delete %6d ms (results %s)", batchMs, perItemMs, batchSum == perItemSum ? "match" : "DIFFER"));
+    }
+
+    private static long windowRound(int ticks)
+    {
+        SlidingWindowMin window = new SlidingWindowMin(10000);
+        Random rand = new Random(42);
+        long sum = 0;
+        for (int t = 0; t < ticks; t++)
+        {
+            for (int i = 0; i < 8; i++) window.add(t, 1 + rand.nextInt(1000000));
+            window.advance(t);
+            sum += window.currentMin();
+        }
+        return sum;
+    }
+
+    private static long perItemWindowRound(int ticks)
+    {
+        Heap heap = new Heap(true, true, new HeapNodePool());
+        ArrayDeque<Heap.HeapItem> handles = new ArrayDeque<>();
+        ArrayDeque<Integer> times = new ArrayDeque<>();
+        Random rand = new Random(42);
+        long sum = 0;
+        for (int t = 0; t < ticks; t++)
+        {
+            for (int i = 0; i < 8; i++)
+            {
+                handles.addLast(heap.insert(1 + rand.nextInt(1000000), null));
+                times.addLast(t);
+            }
+            while (!times.isEmpty() && times.peekFirst() <= t - 10000)
+            {
+                times.pollFirst();
+                heap.delete(handles.pollFirst());
+            }
+            sum += heap.findMinKey();
+        }
+        return sum;
+    }
+
+    /**
+     *
+     * Keep the 100 smallest keys of a random stream of n keys, with TopK and with
+     * a bounded PriorityQueue in reverse order. the keys are generated in blocks
+     * so both sides read the same int arrays.
+     *
+     */
+    private static void benchTopK(long n)
+    {
+        int k = 100;
+        System.out.println("== topK: k=" + k + " over " + n + " random keys ==");
+        for (int round = 0; round < WARMUP_ROUNDS; round++)
+        {
+            topKRound(n / 10, k);
+            priorityQueueRound(n / 10, k);
+        }
+        long start = System.nanoTime();
+        long heapSum = topKRound(n, k);
+        long heapMs = (System.nanoTime() - start) / 1000000;
+        start = System.nanoTime();
+        long queueSum = priorityQueueRound(n, k);
+        long queueMs = (System.nanoTime() - start) / 1000000;
+        System.out.println(String.format("TopK %6d ms, PriorityQueue %6d ms (results %s)", heapMs, queueMs, heapSum == queueSum ? "match" : "DIFFER"));
+    }
+
+    private static final int BLOCK = 1 << 16;
+
+    /**
+     *
+     * fill block with the next keys of a xorshift generator and return the new state.
+     *
+     */
+    private static long nextBlock(int[] block, long state)
+    {
+        for (int i = 0; i < block.length; i++)
+        {
+            state ^= state << 13;
+            state ^= state >>> 7;
+            state ^= state << 17;
+            block[i] = 1 + (int) ((state >>> 33) & 0x3fffffff);
+        }
+        return state;
+    }
+
+    private static long topKRound(long n, int k)
+    {
+        TopK topK = new TopK(k);
+        int[] block = new int[BLOCK];
+        long state = 42;
+        for (long done = 0; done < n; done += BLOCK)
+        {
+            state = nextBlock(block, state);
+            topK.offerAll(block);
+        }
+        long sum = 0;
+        for (int key : topK.sortedKeys()) sum += key;
+        return sum;
+    }
+
+    private static long priorityQueueRound(long n, int k)
+    {
+        PriorityQueue<Integer> queue = new PriorityQueue<>(k + 1, Collections.reverseOrder());
+        int[] block = new int[BLOCK];
+        long state = 42;
+        for (long done = 0; done < n; done += BLOCK)
+        {
+            state = nextBlock(block, state);
+            for (int key : block)
+            {
+                if (queue.size() < k) queue.add(key);
+                else if (key < queue.peek())
+                {
+                    queue.poll();
+                    queue.add(key);
+                }
+            }
+        }
+        long sum = 0;
+        for (int key : queue) sum += key;
+        return sum;
+    }
+
+    /**
+     *
+     * High churn at a steady size: every step inserts one item and deletes the min,
+     * with and without a node pool.
+     *
+     */
+    private static void benchPool()
+    {
+        System.out.println("== pool: steady size 100000, 5000000 insert+deleteMin steps ==");
+        for (int round = 0; round < WARMUP_ROUNDS; round++)
+        {
+            churn(new Heap(true, true), 100000, 500000);
+            churn(new Heap(true, true, new HeapNodePool()), 100000, 500000);
+        }
+        long start = System.nanoTime();
+        churn(new Heap(true, true), 100000, 5000000);
+        long plainMs = (System.nanoTime() - start) / 1000000;
+        HeapNodePool pool = new HeapNodePool();
+        start = System.nanoTime();
+        churn(new Heap(true, true, pool), 100000, 5000000);
+        long pooledMs = (System.nanoTime() - start) / 1000000;
+        System.out.println(String.format("new nodes %6d ms, pooled %6d ms (%d nodes allocated)", plainMs, pooledMs, pool.allocatedCount()));
+    }
+
+    private static void churn(Heap heap, int steadySize, int steps)
+    {
+        Random rand = new Random(42);
+        for (int i = 0; i < steadySize; i++)
+        {
+            heap.insert(1 + rand.nextInt(1000000), null);
+        }
+        int clock = 0;
+        for (int i = 0; i < steps; i++)
+        {
+            clock++;
+            heap.insert(clock + rand.nextInt(1000000), null);
+            heap.deleteMin();
+        }
+    }
+
+    /**
+     *
+     * Consolidate a root list of n single node trees built by lazy inserts,
+     * once with the linked root list and once with the root array.
+     *
+     */
+    private static void benchRootArray()
+    {
+        System.out.println("== rootArray: n=2000000 lazy inserts, then deleteMin until n/2 remain ==");
+        for (int round = 0; round < WARMUP_ROUNDS; round++)
+        {
+            drainHalf(new LazyFibHeap(), 200000);
+            drainHalf(new ArrayRootFibHeap(), 200000);
+        }
+        long start = System.nanoTime();
+        drainHalf(new LazyFibHeap(), 2000000);
+        long listMs = (System.nanoTime() - start) / 1000000;
+        start = System.nanoTime();
+        drainHalf(new ArrayRootFibHeap(), 2000000);
+        long arrayMs = (System.nanoTime() - start) / 1000000;
+        System.out.println(String.format("linked root list %6d ms, root array %6d ms", listMs, arrayMs));
+    }
+
+    private static void drainHalf(HeapEngine heap, int n)
+    {
+        Random rand = new Random(42);
+        for (int i = 0; i < n; i++)
+        {
+            heap.insert(1 + rand.nextInt(Integer.MAX_VALUE - 1), null);
+        }
+        while (heap.size() > n / 2)
+        {
+            heap.deleteMin();
+        }
+    }
+
+    /**
+     *
+     * Compare the flag based Heap with the specialized engine of every mode.
+     * all eight engines are warmed up on the same workload first, so the shared
+     * call sites see every receiver the way they do in a mixed-mode process.
+     *
+     */
+    private static void benchEngines()
+    {
+        System.out.println("== engines: n=200000 inserts, 2n decreaseKeys, n/2 deleteMins ==");
+        String[] modes = {"lazy fib", "eager fib", "lazy binomial", "eager binomial"};
+        boolean[][] flags = {{true, true}, {false, true}, {true, false}, {false, false}};
+        for (int round = 0; round < WARMUP_ROUNDS; round++)
+        {
+            for (int m = 0; m < modes.length; m++)
+            {
+                mixedRound(new Heap(flags[m][0], flags[m][1]), 50000);
+                mixedRound(specialized(m), 50000);
+            }
+        }
+        System.out.println(String.format("%-16s %10s %14s", "mode", "Heap ms", "specialized ms"));
+        for (int m = 0; m < modes.length; m++)
+        {
+            long start = System.nanoTime();
+            mixedRound(new Heap(flags[m][0], flags[m][1]), 200000);
+            long heapMs = (System.nanoTime() - start) / 1000000;
+            start = System.nanoTime();
+            mixedRound(specialized(m), 200000);
+            long specializedMs = (System.nanoTime() - start) / 1000000;
+            System.out.println(String.format("%-16s %10d %14d", modes[m], heapMs, specializedMs));
+        }
+    }
+
+    private static HeapEngine specialized(int mode)
+    {
+        switch (mode)
+        {
+            case 0: return new LazyFibHeap();
+            case 1: return new EagerFibHeap();
+            case 2: return new LazyBinomialHeap();
+            default: return new EagerBinomialHeap();
+        }
+    }
+
+    private static void mixedRound(HeapEngine heap, int n)
+    {
+        Random rand = new Random(42);
+        Heap.HeapItem[] items = new Heap.HeapItem[n];
+        for (int i = 0; i < n; i++)
+        {
+            items[i] = heap.insert(1000000 + rand.nextInt(1000000), null);
+        }
+        for (int op = 0; op < 2 * n; op++)
+        {
+            Heap.HeapItem item = items[rand.nextInt(n)];
+            if (item.key > 1) heap.decreaseKey(item, 1 + rand.nextInt(Math.min(item.key - 1, 100000)));
+        }
+        for (int i = 0; i < n / 2; i++)
+        {
+            heap.deleteMin();
+        }
+    }
+
+    /**
+     *
+     * Sweep the k-mark cut tolerance over a decrease-heavy workload.
+     * every round inserts n items, consolidates once, then performs 4n decrease keys
+     * with a deleteMin every 64 operations.
+     *
+     */
+    private static void benchMarkTolerance()
+    {
+        System.out.println("== markTolerance: n=200000, 4n decreaseKeys ==");
+        System.out.println(String.format("%4s %10s %10s %10s %10s", "k", "ms", "cuts", "links", "marked"));
+        for (int k = 1; k <= 8; k *= 2)
+        {
+            for (int i = 0; i < WARMUP_ROUNDS; i++) decreaseHeavyRound(k, 50000);
+            long start = System.nanoTime();
+            Heap heap = decreaseHeavyRound(k, 200000);
+            long ms = (System.nanoTime() - start) / 1000000;
+            System.out.println(String.format("%4d %10d %10d %10d %10d", k, ms, heap.totalCuts(), heap.totalLinks(), heap.numMarkedNodes()));
+        }
+    }
+
+    private static Heap decreaseHeavyRound(int markTolerance, int n)
+    {
+        Random rand = new Random(42);
+        Heap heap = new Heap(true, true, 0, markTolerance);
+        Heap.HeapItem[] items = new Heap.HeapItem[n];
+        for (int i = 0; i < n; i++)
+        {
+            items[i] = heap.insert(1000000 + rand.nextInt(1000000), Integer.toString(i));
+        }
+        heap.insert(1, null);
+        heap.deleteMin();
+        for (int op = 0; op < 4 * n; op++)
+        {
+            Heap.HeapItem item = items[rand.nextInt(n)];
+            if (item != null && item.key > 1)
+            {
+                heap.decreaseKey(item, 1 + rand.nextInt(Math.min(item.key - 1, 1000)));
+            }
+            if ((op & 63) == 0)
+            {
+                //forget the deleted handle so it is never decreased again
+                items[Integer.parseInt(heap.findMin().info)] = null;
+                heap.deleteMin();
+            }
+        }
+        return heap;
+    }
+}
@@ -0,0 +1,62 @@
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collector;
+
+/**
+ * HeapCollectors
+ *
+ * Collectors that build a Heap from a stream.
+ * A parallel stream fills one heap per split and combines them with meld,
+ * which concatenates root lists in O(1) for lazy melds.
+ *
+ */
+public final class HeapCollectors
+{
+    private HeapCollectors()
+    {
+    }
+
+    /**
+     *
+     * Return a collector into a Heap with lazy melds and lazy decrease keys.
+     * pre: key returns a positive key for every element
+     *
+     */
+    public static <T> Collector<T, Heap, Heap> toHeap(ToIntFunction<? super T> key, Function<? super T, String> info)
+    {
+        return toHeap(key, info, true, true);
+    }
+
+    /**
+     *
+     * Return a collector into a Heap with the given policies, inserting (key(t), info(t)) for every element t.
+     * the partial heaps are combined with meld, so the cost of combining follows the meld policy.
+     * pre: key returns a positive key for every element
+     *
+     */
+    public static <T> Collector<T, Heap, Heap> toHeap(ToIntFunction<? super T> key, Function<? super T, String> info,
+                                                      boolean lazyMelds, boolean lazyDecreaseKeys)
+    {
+        return Collector.of(
+            () -> new Heap(lazyMelds, lazyDecreaseKeys),
+            (heap, t) -> heap.insert(key.applyAsInt(t), info.apply(t)),
+            (heap, heap2) ->
+            {
+                heap.meld(heap2);
+                return heap;
+            },
+            Collector.Characteristics.UNORDERED,
+            Collector.Characteristics.IDENTITY_FINISH);
+    }
+
+    /**
+     *
+     * Return a collector into a Heap with the given policies for elements without payload.
+     * pre: key returns a positive key for every element
+     *
+     */
+    public static <T> Collector<T, Heap, Heap> toHeap(ToIntFunction<? super T> key, boolean lazyMelds, boolean lazyDecreaseKeys)
+    {
+        return toHeap(key, t -> null, lazyMelds, lazyDecreaseKeys);
+    }
+}
@@ -0,0 +1,127 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * HeapCursor
+ *
+ * Iterator over the items of a Heap in key order that does not modify the heap.
+ * The cursor keeps a frontier of nodes in a small binary heap, seeded with the
+ * root list. Every node returned is replaced in the frontier by its children,
+ * so only the nodes next to the returned prefix are ever touched.
+ * The heap must not be modified while a cursor is in use.
+ *
+ */
+public final class HeapCursor implements Iterator<Heap.HeapItem>
+{
+    private Heap.HeapNode[] nodes;
+    private int[] keys; //keys[i] is the key of nodes[i], kept next to it for the comparisons
+    private int count;
+
+    /**
+     *
+     * Constructor to initialize a cursor at the min of the forest whose root list contains root.
+     * root may be null for an empty heap.
+     * complexity O(numTrees)
+     *
+     */
+    HeapCursor(Heap.HeapNode root)
+    {
+        this.nodes = new Heap.HeapNode[16];
+        this.keys = new int[16];
+        if (root != null) pushSiblings(root);
+    }
+
+    public boolean hasNext()
+    {
+        return this.count > 0;
+    }
+
+    /**
+     *
+     * Return the item with the next key and add the children of its node to the frontier.
+     * complexity O(rank * log(frontier))
+     *
+     */
+    public Heap.HeapItem next()
+    {
+        if (this.count == 0) throw new NoSuchElementException();
+        Heap.HeapNode node = this.nodes[0];
+        this.count--;
+        if (this.count > 0)
+        {
+            this.nodes[0] = this.nodes[this.count];
+            this.keys[0] = this.keys[this.count];
+            siftDown(0);
+        }
+        this.nodes[this.count] = null;
+        if (node.child != null) pushSiblings(node.child);
+        return node.item;
+    }
+
+    /**
+     *
+     * Return the item next() would return without advancing, or null at the end.
+     * complexity O(1)
+     *
+     */
+    public Heap.HeapItem peek()
+    {
+        return (this.count == 0) ? null : this.nodes[0].item;
+    }
+
+    /**
+     *
+     * add first and all its siblings to the frontier.
+     * complexity O(siblings * log(frontier))
+     *
+     */
+    private void pushSiblings(Heap.HeapNode first)
+    {
+        Heap.HeapNode node = first;
+        do
+        {
+            push(node);
+            node = node.next;
+        } while (node != first);
+    }
+
+    private void push(Heap.HeapNode node)
+    {
+        if (this.count == this.nodes.length)
+        {
+            this.nodes = Arrays.copyOf(this.nodes, 2 * this.count);
+            this.keys = Arrays.copyOf(this.keys, 2 * this.count);
+        }
+        int i = this.count++;
+        int key = node.item.key;
+        while (i > 0)
+        {
+            int parent = (i - 1) >>> 1;
+            if (this.keys[parent] <= key) break;
+            this.nodes[i] = this.nodes[parent];
+            this.keys[i] = this.keys[parent];
+            i = parent;
+        }
+        this.nodes[i] = node;
+        this.keys[i] = key;
+    }
+
+    private void siftDown(int i)
+    {
+        Heap.HeapNode node = this.nodes[i];
+        int key = this.keys[i];
+        int half = this.count >>> 1;
+        while (i < half)
+        {
+            int child = 2 * i + 1;
+            if (child + 1 < this.count && this.keys[child + 1] < this.keys[child]) child++;
+            if (key <= this.keys[child]) break;
+            this.nodes[i] = this.nodes[child];
+            this.keys[i] = this.keys[child];
+            i = child;
+        }
+        this.nodes[i] = node;
+        this.keys[i] = key;
+    }
+}
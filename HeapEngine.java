@@ -0,0 +1,55 @@
+/**
+ * HeapEngine
+ *
+ * The operations shared by the flag based Heap and its specialized engines.
+ * All engines use Heap.HeapNode and Heap.HeapItem, so handles returned by insert
+ * look the same whichever engine produced them.
+ *
+ */
+public interface HeapEngine extends FootprintAware
+{
+    /**
+     * pre: key > 0
+     * Insert (key,info) into the heap and return the newly generated HeapItem.
+     */
+    Heap.HeapItem insert(int key, String info);
+
+    /**
+     * pre: item is not in a heap, item.key > 0
+     * Insert a caller constructed item, so callers can preallocate handles of their own HeapItem subclass.
+     */
+    void insertItem(Heap.HeapItem item);
+
+    /**
+     * Return the min item, or null if the heap is empty.
+     */
+    Heap.HeapItem findMin();
+
+    /**
+     * Delete the minimal item.
+     */
+    void deleteMin();
+
+    /**
+     * pre: 0<=diff<=x.key
+     * Decrease the key of x by diff and fix the heap.
+     */
+    void decreaseKey(Heap.HeapItem x, int diff);
+
+    /**
+     * Delete x from the heap.
+     */
+    void delete(Heap.HeapItem x);
+
+    int size();
+
+    int numTrees();
+
+    int numMarkedNodes();
+
+    int totalLinks();
+
+    int totalCuts();
+
+    int totalHeapifyCosts();
+}
@@ -0,0 +1,101 @@
+/**
+ * HeapFootprint
+ *
+ * Estimated memory used by a heap, split by what holds it.
+ * The estimate assumes a 64 bit JVM with compressed references (12 byte object
+ * headers, 4 byte references, 8 byte alignment) and compact Latin-1 strings.
+ * It is computed from counters the heap maintains, never by walking the heap.
+ *
+ */
+public final class HeapFootprint
+{
+    static final int OBJECT_HEADER_BYTES = 12;
+    static final int ARRAY_HEADER_BYTES = 16;
+    static final int REFERENCE_BYTES = 4;
+    static final int STRING_BYTES = 24;
+
+    public final long nodeBytes;
+    public final long itemBytes;
+    public final long payloadBytes;
+    public final long bufferBytes;
+    public final long overheadBytes;
+
+    public HeapFootprint(long nodeBytes, long itemBytes, long payloadBytes, long bufferBytes, long overheadBytes)
+    {
+        this.nodeBytes = nodeBytes;
+        this.itemBytes = itemBytes;
+        this.payloadBytes = payloadBytes;
+        this.bufferBytes = bufferBytes;
+        this.overheadBytes = overheadBytes;
+    }
+
+    /**
+     *
+     * Return the sum of all parts.
+     * complexity O(1)
+     *
+     */
+    public long total()
+    {
+        return this.nodeBytes + this.itemBytes + this.payloadBytes + this.bufferBytes + this.overheadBytes;
+    }
+
+    public String toString()
+    {
+        return "HeapFootprint{nodes=" + this.nodeBytes + ", items=" + this.itemBytes + ", payload=" + this.payloadBytes
+            + ", buffer=" + this.bufferBytes + ", overhead=" + this.overheadBytes + ", total=" + total() + "}";
+    }
+
+    /**
+     *
+     * round an object size up to the 8 byte alignment.
+     *
+     */
+    static long align(long bytes)
+    {
+        return (bytes + 7) & ~7L;
+    }
+
+    /**
+     *
+     * size of an object with the given number of field bytes after the header.
+     *
+     */
+    static long objectBytes(int fieldBytes)
+    {
+        return align(OBJECT_HEADER_BYTES + fieldBytes);
+    }
+
+    /**
+     *
+     * size of a reference array of the given length.
+     *
+     */
+    static long referenceArrayBytes(long length)
+    {
+        return align(ARRAY_HEADER_BYTES + REFERENCE_BYTES * length);
+    }
+
+    /**
+     *
+     * estimated size of count strings holding chars characters in total.
+     * each string pays its own object and its backing byte array, the padding
+     * of the arrays is estimated at 4 bytes per string.
+     *
+     */
+    static long stringBytes(long count, long chars)
+    {
+        return count * (STRING_BYTES + ARRAY_HEADER_BYTES + 4) + chars;
+    }
+
+    /**
+     *
+     * size of the rank buckets allocated by one consolidation of a heap of the given size.
+     *
+     */
+    static long consolidationBufferBytes(int size)
+    {
+        int length = (size == 0) ? 1 : (int) (1.5 * Math.ceil(Math.log(size) / Math.log(2)) + 2);
+        return referenceArrayBytes(length);
+    }
+}
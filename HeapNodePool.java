@@ -0,0 +1,110 @@
+/**
+ * HeapNodePool
+ *
+ * Free list of HeapNode/PooledItem pairs shared by one or more heaps on the same thread.
+ * Heaps built with a pool take their nodes from it on insert and give them back on
+ * deleteMin and delete. The item generation is incremented on every release,
+ * so a handle kept across a delete can be detected with Heap.isLive.
+ *
+ */
+public final class HeapNodePool
+{
+    private Heap.HeapNode free; //free nodes chained through next
+    private int freeCount;
+    private long allocated;
+
+    /**
+     *
+     * Return a node holding a pooled item with (key,info), reusing a free node if there is one.
+     * complexity O(1)
+     *
+     */
+    Heap.HeapNode acquire(int key, String info)
+    {
+        Heap.HeapNode node = this.free;
+        if (node == null)
+        {
+            this.allocated++;
+            return new Heap.HeapNode(new Heap.PooledItem(null, key, info));
+        }
+        this.free = node.next;
+        this.freeCount--;
+        node.next = node;
+        node.prev = node;
+        node.item.node = node;
+        node.item.key = key;
+        node.item.info = info;
+        return node;
+    }
+
+    /**
+     *
+     * pre: node was removed from its heap.
+     * clear the node, bump the generation of its item and add it to the free list.
+     * nodes that do not hold a pooled item are left to the garbage collector.
+     * complexity O(1)
+     *
+     */
+    void release(Heap.HeapNode node)
+    {
+        if (!(node.item instanceof Heap.PooledItem)) return;
+        Heap.PooledItem item = (Heap.PooledItem) node.item;
+        item.generation++;
+        item.node = null;
+        item.info = null;
+        node.child = null;
+        node.parent = null;
+        node.prev = null;
+        node.rank = 0;
+        node.lostChildren = 0;
+        node.next = this.free;
+        this.free = node;
+        this.freeCount++;
+    }
+
+    /**
+     *
+     * Return the number of nodes waiting in the pool.
+     * complexity O(1)
+     *
+     */
+    public int freeCount()
+    {
+        return this.freeCount;
+    }
+
+    /**
+     *
+     * Return the number of nodes this pool ever allocated.
+     * complexity O(1)
+     *
+     */
+    public long allocatedCount()
+    {
+        return this.allocated;
+    }
+
+    /**
+     *
+     * Return the estimated number of bytes held by the free nodes of the pool.
+     * complexity O(1)
+     *
+     */
+    public long estimatedBytes()
+    {
+        return this.freeCount * (Heap.NODE_BYTES + Heap.POOLED_ITEM_BYTES);
+    }
+
+    /**
+     *
+     * Drop the free nodes so their memory can be reclaimed, for example after a heap was drained.
+     * nodes still in a heap are not affected.
+     * complexity O(1)
+     *
+     */
+    public void trim()
+    {
+        this.free = null;
+        this.freeCount = 0;
+    }
+}
@@ -0,0 +1,149 @@
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * HeapSpliterator
+ *
+ * Unordered spliterator over the items of a Heap.
+ * It covers a run of sibling trees. trySplit hands off half of the run, and a
+ * single tree is split into its root and the run of its children, so parallel
+ * streams can spread a few large trees over several threads.
+ * Trees are walked through the parent, child and next pointers, without a
+ * stack and without allocating per item.
+ * The heap must not be modified while the spliterator is in use.
+ *
+ */
+final class HeapSpliterator implements Spliterator<Heap.HeapItem>
+{
+    private Heap.HeapNode nextTree; //first tree of the run that was not started
+    private int trees; //number of trees left in the run
+    private Heap.HeapNode treeRoot; //root of the tree being walked
+    private Heap.HeapNode next; //next node of the tree being walked, null when no walk is in progress
+    private Heap.HeapNode single; //a node to return alone, without its subtree
+    private long exactSize; //the number of items left, or -1 once split
+    private long estimate;
+
+    /**
+     *
+     * Constructor to initialize a spliterator over the trees first, first.next, ... of a run of
+     * the given length, holding size items. size is exact for a root list and an estimate otherwise.
+     * complexity O(1)
+     *
+     */
+    HeapSpliterator(Heap.HeapNode first, int trees, long size, boolean exact)
+    {
+        this.nextTree = first;
+        this.trees = (first == null) ? 0 : trees;
+        this.estimate = size;
+        this.exactSize = exact ? size : -1;
+    }
+
+    /**
+     *
+     * return the node after node in a preorder walk of the subtree of root, or null at its end.
+     * complexity O(1) amortized over a full walk
+     *
+     */
+    private static Heap.HeapNode nextInSubtree(Heap.HeapNode node, Heap.HeapNode root)
+    {
+        if (node.child != null) return node.child;
+        while (node != root)
+        {
+            if (node.next != node.parent.child) return node.next;
+            node = node.parent;
+        }
+        return null;
+    }
+
+    public boolean tryAdvance(Consumer<? super Heap.HeapItem> action)
+    {
+        Heap.HeapNode node;
+        if (this.single != null)
+        {
+            node = this.single;
+            this.single = null;
+        }
+        else
+        {
+            if (this.next == null)
+            {
+                if (this.trees == 0) return false;
+                this.treeRoot = this.nextTree;
+                this.next = this.treeRoot;
+                this.nextTree = this.nextTree.next;
+                this.trees--;
+            }
+            node = this.next;
+            this.next = nextInSubtree(node, this.treeRoot);
+        }
+        if (this.exactSize > 0) this.exactSize--;
+        action.accept(node.item);
+        return true;
+    }
+
+    public void forEachRemaining(Consumer<? super Heap.HeapItem> action)
+    {
+        if (this.single != null)
+        {
+            action.accept(this.single.item);
+            this.single = null;
+        }
+        for (Heap.HeapNode node = this.next; node != null; node = nextInSubtree(node, this.treeRoot))
+        {
+            action.accept(node.item);
+        }
+        this.next = null;
+        for (; this.trees > 0; this.trees--)
+        {
+            Heap.HeapNode root = this.nextTree;
+            this.nextTree = root.next;
+            for (Heap.HeapNode node = root; node != null; node = nextInSubtree(node, root))
+            {
+                action.accept(node.item);
+            }
+        }
+        if (this.exactSize > 0) this.exactSize = 0;
+    }
+
+    /**
+     *
+     * split off half of the run of trees, or the children of the last tree.
+     * returns null while a tree is being walked.
+     * complexity O(trees)
+     *
+     */
+    public Spliterator<Heap.HeapItem> trySplit()
+    {
+        if (this.next != null || this.single != null || this.trees == 0) return null;
+        HeapSpliterator prefix;
+        if (this.trees >= 2)
+        {
+            int half = this.trees / 2;
+            prefix = new HeapSpliterator(this.nextTree, half, this.estimate / 2, false);
+            for (int i = 0; i < half; i++) this.nextTree = this.nextTree.next;
+            this.trees -= half;
+        }
+        else
+        {
+            Heap.HeapNode root = this.nextTree;
+            if (root.child == null) return null;
+            prefix = new HeapSpliterator(root.child, root.rank, this.estimate - 1, false);
+            this.single = root;
+            this.nextTree = null;
+            this.trees = 0;
+        }
+        this.estimate -= prefix.estimate;
+        this.exactSize = -1;
+        return prefix;
+    }
+
+    public long estimateSize()
+    {
+        return (this.exactSize >= 0) ? this.exactSize : this.estimate;
+    }
+
+    public int characteristics()
+    {
+        return (this.exactSize >= 0) ? (SIZED | NONNULL) : NONNULL;
+    }
+}
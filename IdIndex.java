@@ -0,0 +1,157 @@
+import java.util.Arrays;
+
+/**
+ * IdIndex
+ *
+ * Open addressing map from a caller supplied long id to a HeapItem, with linear
+ * probing and backward shift deletion, so lookups need no boxing and no entry objects.
+ * The map points at items rather than nodes, since an item keeps its identity when
+ * heapifyUp moves it to another node.
+ *
+ */
+final class IdIndex
+{
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] ids;
+    private Heap.HeapItem[] items; //null marks an empty slot
+    private int size;
+    private int shift; //64 - log2(capacity)
+
+    IdIndex()
+    {
+        this.ids = new long[INITIAL_CAPACITY];
+        this.items = new Heap.HeapItem[INITIAL_CAPACITY];
+        this.shift = 64 - Integer.numberOfTrailingZeros(INITIAL_CAPACITY);
+    }
+
+    /**
+     *
+     * return the home slot of id, using the fibonacci hash of the id.
+     * complexity O(1)
+     *
+     */
+    private int slot(long id)
+    {
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> this.shift);
+    }
+
+    /**
+     *
+     * Return the item stored for id, or null.
+     * complexity O(1) expected
+     *
+     */
+    Heap.HeapItem get(long id)
+    {
+        int mask = this.items.length - 1;
+        for (int i = slot(id); this.items[i] != null; i = (i + 1) & mask)
+        {
+            if (this.ids[i] == id) return this.items[i];
+        }
+        return null;
+    }
+
+    /**
+     *
+     * Store item for id and return the item previously stored for it, or null.
+     * complexity O(1) amortized
+     *
+     */
+    Heap.HeapItem put(long id, Heap.HeapItem item)
+    {
+        int mask = this.items.length - 1;
+        int i = slot(id);
+        for (; this.items[i] != null; i = (i + 1) & mask)
+        {
+            if (this.ids[i] == id)
+            {
+                Heap.HeapItem previous = this.items[i];
+                this.items[i] = item;
+                return previous;
+            }
+        }
+        this.ids[i] = id;
+        this.items[i] = item;
+        if (++this.size * 2 > this.items.length) resize(this.items.length * 2);
+        return null;
+    }
+
+    /**
+     *
+     * Remove id and return its item, or null if it was not stored.
+     * the following entries of the probe sequence are shifted back so no tombstones are left.
+     * complexity O(1) expected
+     *
+     */
+    Heap.HeapItem remove(long id)
+    {
+        int mask = this.items.length - 1;
+        int i = slot(id);
+        while (this.items[i] != null && this.ids[i] != id) i = (i + 1) & mask;
+        Heap.HeapItem removed = this.items[i];
+        if (removed == null) return null;
+        int hole = i;
+        for (int j = (i + 1) & mask; this.items[j] != null; j = (j + 1) & mask)
+        {
+            int home = slot(this.ids[j]);
+            //move j into the hole unless its home slot lies cyclically in (hole, j]
+            if (((j - home) & mask) >= ((j - hole) & mask))
+            {
+                this.ids[hole] = this.ids[j];
+                this.items[hole] = this.items[j];
+                hole = j;
+            }
+        }
+        this.items[hole] = null;
+        this.size--;
+        return removed;
+    }
+
+    /**
+     *
+     * Move every entry into other and leave this index empty.
+     * complexity O(capacity)
+     *
+     */
+    void moveAllTo(IdIndex other)
+    {
+        for (int i = 0; i < this.items.length; i++)
+        {
+            if (this.items[i] != null) other.put(this.ids[i], this.items[i]);
+        }
+        Arrays.fill(this.items, null);
+        this.size = 0;
+    }
+
+    private void resize(int capacity)
+    {
+        long[] oldIds = this.ids;
+        Heap.HeapItem[] oldItems = this.items;
+        this.ids = new long[capacity];
+        this.items = new Heap.HeapItem[capacity];
+        this.shift = 64 - Integer.numberOfTrailingZeros(capacity);
+        this.size = 0;
+        for (int i = 0; i < oldItems.length; i++)
+        {
+            if (oldItems[i] != null) put(oldIds[i], oldItems[i]);
+        }
+    }
+
+    int size()
+    {
+        return this.size;
+    }
+
+    /**
+     *
+     * Return the bytes used by the two backing arrays.
+     * complexity O(1)
+     *
+     */
+    long estimatedBytes()
+    {
+        return HeapFootprint.align(HeapFootprint.ARRAY_HEADER_BYTES + 8L * this.ids.length)
+            + HeapFootprint.referenceArrayBytes(this.items.length);
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * IntPayloadHeap
+ *
+ * Cut based compact heap whose payload is an int stored inline in the node.
+ * Reading findMin().payload needs no pointer chase and no payload object is allocated.
+ *
+ */
+public final class IntPayloadHeap extends AbstractCompactHeap<IntPayloadHeap.Node>
+{
+    private static final long NODE_BYTES = HeapFootprint.objectBytes(COMPACT_NODE_FIELD_BYTES + 4);
+
+    /**
+     *
+     * Constructor to initialize an empty heap, with or without lazy melds.
+     * complexity O(1)
+     *
+     */
+    public IntPayloadHeap(boolean lazyMelds)
+    {
+        super(lazyMelds);
+    }
+
+    /**
+     *
+     * pre: key > 0
+     * Insert (key,payload) into the heap and return the node, which is also the handle.
+     * for lazy meld complexity O(1)
+     * for non-lazy meld complexity O(log n)
+     *
+     */
+    public Node insert(int key, int payload)
+    {
+        return insertNode(new Node(key, payload));
+    }
+
+    /**
+     *
+     * Meld the heap with heap2, which is left empty.
+     * pre: heap2.lazyMelds = this.lazyMelds
+     *
+     */
+    public void meld(IntPayloadHeap heap2)
+    {
+        meldWith(heap2);
+    }
+
+    protected long nodeBytes()
+    {
+        return NODE_BYTES;
+    }
+
+    /**
+     * Class implementing a compact node with an inline int payload.
+     *
+     */
+    public static final class Node extends CompactNode
+    {
+        public int payload;
+
+        public Node(int key, int payload)
+        {
+            super(key);
+            this.payload = payload;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/**
+ * KeyOnlyHeap
+ *
+ * Cut based compact heap holding keys only.
+ * Every element is a single node with no payload field at all.
+ *
+ */
+public final class KeyOnlyHeap extends AbstractCompactHeap<KeyOnlyHeap.Node>
+{
+    private static final long NODE_BYTES = HeapFootprint.objectBytes(COMPACT_NODE_FIELD_BYTES);
+
+    /**
+     *
+     * Constructor to initialize an empty heap, with or without lazy melds.
+     * complexity O(1)
+     *
+     */
+    public KeyOnlyHeap(boolean lazyMelds)
+    {
+        super(lazyMelds);
+    }
+
+    /**
+     *
+     * pre: key > 0
+     * Insert key into the heap and return the node, which is also the handle.
+     * for lazy meld complexity O(1)
+     * for non-lazy meld complexity O(log n)
+     *
+     */
+    public Node insert(int key)
+    {
+        return insertNode(new Node(key));
+    }
+
+    /**
+     *
+     * Meld the heap with heap2, which is left empty.
+     * pre: heap2.lazyMelds = this.lazyMelds
+     *
+     */
+    public void meld(KeyOnlyHeap heap2)
+    {
+        meldWith(heap2);
+    }
+
+    protected long nodeBytes()
+    {
+        return NODE_BYTES;
+    }
+
+    /**
+     * Class implementing a compact node without payload.
+     *
+     */
+    public static final class Node extends CompactNode
+    {
+        public Node(int key)
+        {
+            super(key);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * LazyBinomialHeap
+ *
+ * Lazy binomial heap: melds are lazy and decrease keys swap items up the tree.
+ * Behaves like new Heap(true, false) without any runtime mode check.
+ *
+ */
+public final class LazyBinomialHeap extends AbstractHeapEngine
+{
+    /**
+     *
+     * pre: key > 0
+     * Insert (key,info) into the heap and return the newly generated HeapItem.
+     * complexity O(1)
+     *
+     */
+    public Heap.HeapItem insert(int key, String info)
+    {
+        Heap.HeapNode node = new Heap.HeapNode(key, info);
+        addRoot(node);
+        return node.item;
+    }
+
+    /**
+     *
+     * pre: item is not in a heap, item.key > 0
+     * Insert a caller constructed item, the same way as insert.
+     *
+     */
+    public void insertItem(Heap.HeapItem item)
+    {
+        addRoot(new Heap.HeapNode(item));
+    }
+
+    /**
+     *
+     * pre: 0<=diff<=x.key
+     * Decrease the key of x by diff and fix the heap.
+     * fixes the heap by swapping items up, complexity O(log n).
+     *
+     */
+    public void decreaseKey(Heap.HeapItem x, int diff)
+    {
+        if (x == null || diff < 0 || x.node == null) return;
+        x.key -= diff;
+        if (x.node.parent != null && x.key < x.node.parent.item.key)
+        {
+            heapifyUp(x.node);
+        }
+        if (this.min.key > x.key) this.min = x;
+    }
+
+    /**
+     *
+     * Delete x from the heap.
+     *
+     */
+    public void delete(Heap.HeapItem x)
+    {
+        if (x == null || x.node == null) return;
+        //x is lowered below every key and moved to the root, x.key + 1 would overflow for Integer.MAX_VALUE
+        x.key = Integer.MIN_VALUE;
+        heapifyToRoot(x.node);
+        this.min = x;
+        deleteMin();
+    }
+
+    /**
+     *
+     * Meld the heap with heap2.
+     * complexity O(1)
+     *
+     */
+    public void meld(LazyBinomialHeap heap2)
+    {
+        absorb(heap2);
+    }
+}
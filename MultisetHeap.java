@@ -0,0 +1,212 @@
+import java.util.Arrays;
+
+/**
+ * MultisetHeap
+ *
+ * Heap for workloads with many equal keys. All items with the same key share one
+ * heap node that holds a bucket of payloads, so inserting a key that is already
+ * present touches neither the root list nor successiveLink, and deleteMin only
+ * restructures the heap once the bucket of the min key is empty.
+ * The node count, and with it the link count, follows the number of distinct keys.
+ *
+ */
+public final class MultisetHeap implements FootprintAware
+{
+    private static final long BUCKET_ITEM_EXTRA_BYTES = HeapFootprint.REFERENCE_BYTES + 4;
+
+    private final Heap heap;
+    private final IdIndex byKey; //key -> bucket item of that key
+    private int size;
+    private int extraPayloadCount; //payloads stored in bucket arrays
+    private long extraPayloadChars;
+    private long bucketSlots; //total capacity of the bucket arrays
+
+    /**
+     *
+     * Constructor to initialize an empty multiset heap on a Heap with the given policies.
+     * complexity O(1)
+     *
+     */
+    public MultisetHeap(boolean lazyMelds, boolean lazyDecreaseKeys)
+    {
+        this.heap = new Heap(lazyMelds, lazyDecreaseKeys);
+        this.byKey = new IdIndex();
+    }
+
+    /**
+     *
+     * pre: key > 0
+     * Insert (key,info). if the key is already present the payload joins its bucket.
+     * complexity O(1) amortized for a present key, otherwise as Heap.insert
+     *
+     */
+    public void insert(int key, String info)
+    {
+        this.size++;
+        BucketItem bucket = (BucketItem) this.byKey.get(key);
+        if (bucket == null)
+        {
+            bucket = new BucketItem(key, info);
+            this.heap.insertItem(bucket);
+            this.byKey.put(key, bucket);
+            return;
+        }
+        if (bucket.more == null)
+        {
+            bucket.more = new String[4];
+            this.bucketSlots += 4;
+        }
+        else if (bucket.count == bucket.more.length)
+        {
+            this.bucketSlots += bucket.more.length;
+            bucket.more = Arrays.copyOf(bucket.more, bucket.more.length * 2);
+        }
+        bucket.more[bucket.count++] = info;
+        countExtraPayload(info, 1);
+    }
+
+    /**
+     *
+     * Return the min key, or -1 if the heap is empty.
+     * complexity O(1)
+     *
+     */
+    public int findMinKey()
+    {
+        BucketItem min = minBucket();
+        return (min == null) ? -1 : min.key;
+    }
+
+    /**
+     *
+     * Return the payload deleteMin would remove next, or null if the heap is empty.
+     * complexity O(1)
+     *
+     */
+    public String findMinInfo()
+    {
+        BucketItem min = minBucket();
+        if (min == null) return null;
+        return (min.count > 0) ? min.more[min.count - 1] : min.info;
+    }
+
+    private BucketItem minBucket()
+    {
+        return (BucketItem) this.heap.findMin();
+    }
+
+    /**
+     *
+     * Delete one item with the min key. the bucket is popped first and
+     * the heap node is only deleted with the last payload of its key.
+     * complexity O(1) while the bucket is not empty, otherwise as Heap.deleteMin
+     *
+     */
+    public void deleteMin()
+    {
+        BucketItem min = minBucket();
+        if (min == null) return;
+        this.size--;
+        if (min.count > 0)
+        {
+            String info = min.more[--min.count];
+            min.more[min.count] = null;
+            countExtraPayload(info, -1);
+            return;
+        }
+        if (min.more != null) this.bucketSlots -= min.more.length;
+        this.byKey.remove(min.key);
+        this.heap.deleteMin();
+    }
+
+    /**
+     *
+     * Return the number of items with the given key.
+     * complexity O(1) expected
+     *
+     */
+    public int count(int key)
+    {
+        BucketItem bucket = (BucketItem) this.byKey.get(key);
+        return (bucket == null) ? 0 : bucket.count + 1;
+    }
+
+    /**
+     *
+     * Return the number of items, counting every payload of a bucket.
+     * complexity O(1)
+     *
+     */
+    public int size()
+    {
+        return this.size;
+    }
+
+    /**
+     *
+     * Return the number of distinct keys, which is the number of heap nodes.
+     * complexity O(1)
+     *
+     */
+    public int distinctKeys()
+    {
+        return this.heap.size();
+    }
+
+    public int numTrees()
+    {
+        return this.heap.numTrees();
+    }
+
+    public int totalLinks()
+    {
+        return this.heap.totalLinks();
+    }
+
+    private void countExtraPayload(String info, int sign)
+    {
+        if (info == null) return;
+        this.extraPayloadCount += sign;
+        this.extraPayloadChars += sign * info.length();
+    }
+
+    public long estimatedBytes()
+    {
+        return footprint().total();
+    }
+
+    /**
+     *
+     * Return the estimated memory use: the nodes of the inner heap, the bucket
+     * items and arrays, every payload and the key index.
+     * complexity O(1)
+     *
+     */
+    public HeapFootprint footprint()
+    {
+        HeapFootprint inner = this.heap.footprint();
+        int buckets = this.heap.size();
+        return new HeapFootprint(
+            inner.nodeBytes,
+            inner.itemBytes + buckets * BUCKET_ITEM_EXTRA_BYTES + this.bucketSlots * HeapFootprint.REFERENCE_BYTES,
+            inner.payloadBytes + HeapFootprint.stringBytes(this.extraPayloadCount, this.extraPayloadChars),
+            inner.bufferBytes,
+            inner.overheadBytes + this.byKey.estimatedBytes());
+    }
+
+    /**
+     * Class implementing the heap item of a key, the first payload is kept in info
+     * and the following ones in a growable array.
+     *
+     */
+    private static final class BucketItem extends Heap.HeapItem
+    {
+        String[] more;
+        int count;
+
+        BucketItem(int key, String info)
+        {
+            super(null, key, info);
+        }
+    }
+}
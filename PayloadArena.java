@@ -0,0 +1,202 @@
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/**
+ * PayloadArena
+ *
+ * Off-heap storage for string payloads, made of direct ByteBuffer chunks.
+ * A payload is copied in once as UTF-16 chars and is then known only by a long
+ * reference (chunk index in the high 32 bits, byte offset in the low 32 bits)
+ * and its length, so millions of payloads do not add objects for the GC to trace.
+ * Chunks are bump allocated and reclaimed in bulk: once every payload of a
+ * chunk was freed the whole chunk is reused.
+ *
+ */
+public final class PayloadArena
+{
+    public static final int DEFAULT_CHUNK_BYTES = 1 << 20;
+
+    private final int chunkBytes;
+    private ByteBuffer[] chunks;
+    private int[] liveBytes;
+    private int numChunks;
+    private int current; //chunk that receives new payloads
+    private int position; //next free byte in the current chunk
+    private int[] emptyChunks; //stack of chunks whose payloads were all freed
+    private int numEmptyChunks;
+    private long totalLiveBytes;
+
+    /**
+     *
+     * Constructor to initialize an arena with chunks of DEFAULT_CHUNK_BYTES.
+     * complexity O(1)
+     *
+     */
+    public PayloadArena()
+    {
+        this(DEFAULT_CHUNK_BYTES);
+    }
+
+    /**
+     *
+     * Constructor to initialize an arena with chunks of chunkBytes, which also bounds the payload size.
+     * complexity O(1)
+     *
+     */
+    public PayloadArena(int chunkBytes)
+    {
+        if (chunkBytes < 2) throw new IllegalArgumentException("chunkBytes must be >= 2");
+        this.chunkBytes = chunkBytes & ~1;
+        this.chunks = new ByteBuffer[4];
+        this.liveBytes = new int[4];
+        this.emptyChunks = new int[4];
+        this.current = -1;
+    }
+
+    /**
+     *
+     * pre: 2 * info.length() <= chunk size
+     * Copy info into the arena and return its reference.
+     * complexity O(info.length()) amortized
+     *
+     */
+    public long store(CharSequence info)
+    {
+        int length = info.length();
+        int bytes = 2 * length;
+        if (bytes > this.chunkBytes) throw new IllegalArgumentException("payload of " + length + " chars does not fit in a chunk");
+        if (this.current < 0 || this.position + bytes > this.chunkBytes) nextChunk();
+        ByteBuffer chunk = this.chunks[this.current];
+        int offset = this.position;
+        for (int i = 0; i < length; i++)
+        {
+            chunk.putChar(offset + 2 * i, info.charAt(i));
+        }
+        this.position += bytes;
+        this.liveBytes[this.current] += bytes;
+        this.totalLiveBytes += bytes;
+        return ((long) this.current << 32) | offset;
+    }
+
+    /**
+     *
+     * make an empty chunk the current chunk, reusing a reclaimed chunk if there is one.
+     * complexity O(1) amortized
+     *
+     */
+    private void nextChunk()
+    {
+        int previous = this.current;
+        if (this.numEmptyChunks > 0)
+        {
+            this.current = this.emptyChunks[--this.numEmptyChunks];
+        }
+        else
+        {
+            if (this.numChunks == this.chunks.length)
+            {
+                this.chunks = Arrays.copyOf(this.chunks, this.numChunks * 2);
+                this.liveBytes = Arrays.copyOf(this.liveBytes, this.numChunks * 2);
+                this.emptyChunks = Arrays.copyOf(this.emptyChunks, this.numChunks * 2);
+            }
+            this.chunks[this.numChunks] = ByteBuffer.allocateDirect(this.chunkBytes);
+            this.current = this.numChunks++;
+        }
+        this.position = 0;
+        //a full chunk whose payloads were already freed can be reused right away
+        if (previous >= 0 && this.liveBytes[previous] == 0) this.emptyChunks[this.numEmptyChunks++] = previous;
+    }
+
+    /**
+     *
+     * Free the payload at ref, reclaiming its chunk once the chunk holds no live payload.
+     * freeing an empty payload, or a payload of a chunk that holds no live bytes, does
+     * nothing, so a chunk is reclaimed only once, when its live bytes drop to zero.
+     * complexity O(1)
+     *
+     */
+    public void free(long ref, int length)
+    {
+        int chunk = (int) (ref >>> 32);
+        int bytes = 2 * length;
+        if (bytes == 0 || this.liveBytes[chunk] == 0) return;
+        this.liveBytes[chunk] -= bytes;
+        this.totalLiveBytes -= bytes;
+        if (this.liveBytes[chunk] > 0) return;
+        if (chunk == this.current)
+        {
+            this.position = 0;
+        }
+        else
+        {
+            this.emptyChunks[this.numEmptyChunks++] = chunk;
+        }
+    }
+
+    /**
+     *
+     * Return a read-only view of the payload at ref without copying it.
+     * the view is only valid until the payload is freed.
+     * complexity O(1)
+     *
+     */
+    public CharSequence read(long ref, int length)
+    {
+        ByteBuffer view = this.chunks[(int) (ref >>> 32)].duplicate();
+        int offset = (int) ref;
+        view.limit(offset + 2 * length).position(offset);
+        CharBuffer chars = view.slice().asCharBuffer();
+        return chars.asReadOnlyBuffer();
+    }
+
+    /**
+     *
+     * Return the char at index of the payload at ref, without allocating.
+     * complexity O(1)
+     *
+     */
+    public char charAt(long ref, int index)
+    {
+        return this.chunks[(int) (ref >>> 32)].getChar((int) ref + 2 * index);
+    }
+
+    /**
+     *
+     * Append the payload at ref to sb and return sb.
+     * complexity O(length)
+     *
+     */
+    public StringBuilder appendTo(long ref, int length, StringBuilder sb)
+    {
+        ByteBuffer chunk = this.chunks[(int) (ref >>> 32)];
+        int offset = (int) ref;
+        for (int i = 0; i < length; i++)
+        {
+            sb.append(chunk.getChar(offset + 2 * i));
+        }
+        return sb;
+    }
+
+    /**
+     *
+     * Return the number of bytes held by live payloads.
+     * complexity O(1)
+     *
+     */
+    public long liveBytes()
+    {
+        return this.totalLiveBytes;
+    }
+
+    /**
+     *
+     * Return the number of off-heap bytes reserved by the chunks.
+     * complexity O(1)
+     *
+     */
+    public long reservedBytes()
+    {
+        return (long) this.numChunks * this.chunkBytes;
+    }
+}
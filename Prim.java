@@ -0,0 +1,127 @@
+/**
+ * Prim
+ *
+ * Minimum spanning forest of an undirected graph given as adjacency arrays in
+ * compressed sparse row form, where every edge appears once from each endpoint:
+ * the neighbours of v are targets[offsets[v]..offsets[v + 1]) with the weights
+ * at the same positions.
+ * Every vertex has a preallocated handle that is inserted into the heap when the
+ * vertex is first reached and lowered with decreaseKey, so scanning an edge never
+ * allocates. It runs on Heap or on any HeapEngine.
+ *
+ */
+public final class Prim
+{
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] weights;
+    private final VertexItem[] handles;
+
+    /**
+     *
+     * Constructor to initialize the engine for a graph with offsets.length - 1 vertices.
+     * throws IllegalArgumentException if the arrays do not describe a graph with non negative weights.
+     * complexity O(n + m)
+     *
+     */
+    public Prim(int[] offsets, int[] targets, int[] weights)
+    {
+        this.handles = VertexItem.handlesFor(offsets, targets, weights);
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    /**
+     *
+     * Compute the minimum spanning forest with a Heap of the given mode.
+     * complexity O(m + n log n) with lazy decrease keys, O(m log n) otherwise
+     *
+     */
+    public Result run(boolean lazyMelds, boolean lazyDecreaseKeys)
+    {
+        return run(new Heap(lazyMelds, lazyDecreaseKeys));
+    }
+
+    /**
+     *
+     * pre: heap is empty
+     * Compute the minimum spanning forest with the given heap engine.
+     * every tree of the forest is grown from its smallest vertex.
+     * complexity O(m) decreaseKeys and O(n) inserts and deleteMins on the engine
+     *
+     */
+    public Result run(HeapEngine heap)
+    {
+        int n = this.handles.length;
+        int[] parents = new int[n];
+        int[] parentWeights = new int[n];
+        for (VertexItem handle : this.handles)
+        {
+            handle.node = null;
+            handle.settled = false;
+        }
+        long totalWeight = 0;
+        int numEdges = 0;
+        for (int root = 0; root < n; root++)
+        {
+            if (this.handles[root].settled) continue;
+            VertexItem start = this.handles[root];
+            start.key = 0;
+            parents[root] = -1;
+            heap.insertItem(start);
+            while (heap.size() > 0)
+            {
+                VertexItem u = (VertexItem) heap.findMin();
+                heap.deleteMin();
+                u.settled = true;
+                if (u != start)
+                {
+                    parentWeights[u.vertex] = u.key;
+                    totalWeight += u.key;
+                    numEdges++;
+                }
+                for (int e = this.offsets[u.vertex], end = this.offsets[u.vertex + 1]; e < end; e++)
+                {
+                    VertexItem v = this.handles[this.targets[e]];
+                    if (v.settled) continue;
+                    int weight = this.weights[e];
+                    if (v.node == null)
+                    {
+                        v.key = weight;
+                        heap.insertItem(v);
+                        parents[v.vertex] = u.vertex;
+                    }
+                    else if (weight < v.key)
+                    {
+                        heap.decreaseKey(v, v.key - weight);
+                        parents[v.vertex] = u.vertex;
+                    }
+                }
+            }
+        }
+        return new Result(totalWeight, numEdges, parents, parentWeights);
+    }
+
+    /**
+     * Class holding the result of a run.
+     * the tree edges are (parents[v], v) with weight parentWeights[v] for every v
+     * whose parent is not -1, the roots of the forest have parent -1.
+     *
+     */
+    public static final class Result
+    {
+        public final long totalWeight;
+        public final int numEdges;
+        public final int[] parents;
+        public final int[] parentWeights;
+
+        Result(long totalWeight, int numEdges, int[] parents, int[] parentWeights)
+        {
+            this.totalWeight = totalWeight;
+            this.numEdges = numEdges;
+            this.parents = parents;
+            this.parentWeights = parentWeights;
+        }
+    }
+}
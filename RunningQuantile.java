@@ -0,0 +1,148 @@
+/**
+ * RunningQuantile
+ *
+ * Streaming quantile of a multiset of int samples with deletion of earlier samples.
+ * The samples are split between two heaps: lower holds the smallest samples under
+ * inverted keys, so its min is the largest of them, and upper holds the rest.
+ * lower is kept at max(1, ceil(q * n)) samples, so the quantile is the min of lower.
+ * Every sample keeps the id returned by add in whichever heap holds it, through the
+ * id index of Heap, so a sample moved between the heaps keeps its handle.
+ * Both heaps are binomial (no lazy melds, no lazy decrease keys), which keeps
+ * every update O(log n) without amortization.
+ *
+ */
+public final class RunningQuantile
+{
+    private final double q;
+    private final Heap lower;
+    private final Heap upper;
+    private long nextId;
+
+    /**
+     *
+     * Constructor to initialize an empty tracker of the q quantile, for 0 < q <= 1.
+     * q = 0.5 tracks the lower median.
+     * complexity O(1)
+     *
+     */
+    public RunningQuantile(double q)
+    {
+        if (!(q > 0 && q <= 1)) throw new IllegalArgumentException("q must be in (0, 1]");
+        this.q = q;
+        this.lower = new Heap(false, false);
+        this.upper = new Heap(false, false);
+    }
+
+    /**
+     *
+     * Add a sample and return its id, which remove accepts later.
+     * complexity O(log n)
+     *
+     */
+    public long add(int value)
+    {
+        long id = this.nextId++;
+        if (this.lower.size() == 0 || value <= ~this.lower.findMin().key)
+        {
+            this.lower.insert(~value, null, id);
+        }
+        else
+        {
+            this.upper.insert(value, null, id);
+        }
+        rebalance();
+        return id;
+    }
+
+    /**
+     *
+     * Remove the sample with the given id and return whether it was still tracked.
+     * complexity O(log n)
+     *
+     */
+    public boolean remove(long id)
+    {
+        if (!this.lower.deleteById(id) && !this.upper.deleteById(id)) return false;
+        rebalance();
+        return true;
+    }
+
+    /**
+     *
+     * Return whether the sample with the given id is tracked.
+     * complexity O(1) expected
+     *
+     */
+    public boolean contains(long id)
+    {
+        return this.lower.containsId(id) || this.upper.containsId(id);
+    }
+
+    /**
+     *
+     * pre: size() > 0
+     * Return the q quantile, the sample of rank max(1, ceil(q * n)) in ascending order.
+     * complexity O(1)
+     *
+     */
+    public int value()
+    {
+        if (this.lower.size() == 0) throw new IllegalStateException("no samples");
+        return ~this.lower.findMin().key;
+    }
+
+    /**
+     *
+     * Return the number of tracked samples.
+     * complexity O(1)
+     *
+     */
+    public int size()
+    {
+        return this.lower.size() + this.upper.size();
+    }
+
+    /**
+     *
+     * move samples between the heaps until lower holds max(1, ceil(q * n)) of them.
+     * one add or remove moves at most one sample.
+     * complexity O(log n)
+     *
+     */
+    /**
+     *
+     * return ceil(q * n). q * n is off by at most one ulp from the exact product of the
+     * decimal q and n, so 0.07 * 100 = 7.000000000000001 would round up to 8.
+     * the product is lowered by two ulps before the ceiling, which only matters when it
+     * is that close to an integer.
+     * complexity O(1)
+     *
+     */
+    static int rank(double q, int n)
+    {
+        double product = q * n;
+        return (int) Math.ceil(product - 2 * Math.ulp(product));
+    }
+
+    private void rebalance()
+    {
+        int n = size();
+        int target = (n == 0) ? 0 : Math.max(1, Math.min(n, rank(this.q, n)));
+        while (this.lower.size() > target)
+        {
+            Heap.IndexedItem top = (Heap.IndexedItem) this.lower.findMin();
+            int value = ~top.key;
+            long id = top.id;
+            this.lower.deleteMin();
+            this.upper.insert(value, null, id);
+        }
+        while (this.lower.size() < target)
+        {
+            Heap.IndexedItem bottom = (Heap.IndexedItem) this.upper.findMin();
+            int value = bottom.key;
+            long id = bottom.id;
+            this.upper.deleteMin();
+            this.lower.insert(~value, null, id);
+        }
+    }
+}
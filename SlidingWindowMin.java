@@ -0,0 +1,139 @@
+import java.util.Arrays;
+
+/**
+ * SlidingWindowMin
+ *
+ * Minimum of the samples of the last window time units, over a Heap.
+ * Samples are kept in arrival order in a FIFO of heap handles next to their
+ * timestamps, so the expired samples are always a prefix of the FIFO and
+ * advance removes them with a single Heap.deleteAll. That batch only
+ * consolidates when the min itself expired, instead of once per sample.
+ * Nodes are recycled through a HeapNodePool.
+ *
+ */
+public final class SlidingWindowMin
+{
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final long window;
+    private final Heap heap;
+    private Heap.HeapItem[] handles; //live samples are handles[head..tail)
+    private long[] times;
+    private int head;
+    private int tail;
+
+    /**
+     *
+     * Constructor to initialize an empty window that keeps the samples of the last window time units.
+     * complexity O(1)
+     *
+     */
+    public SlidingWindowMin(long window)
+    {
+        if (window < 1) throw new IllegalArgumentException("window must be >= 1");
+        this.window = window;
+        this.heap = new Heap(true, true, new HeapNodePool());
+        this.handles = new Heap.HeapItem[INITIAL_CAPACITY];
+        this.times = new long[INITIAL_CAPACITY];
+    }
+
+    /**
+     *
+     * pre: time is not smaller than the time of the previous sample
+     * Add a sample with the given value at the given time.
+     * complexity O(1) amortized
+     *
+     */
+    public void add(long time, int value)
+    {
+        if (this.tail > this.head && time < this.times[this.tail - 1])
+        {
+            throw new IllegalArgumentException("samples must arrive in time order");
+        }
+        if (this.tail == this.handles.length) makeRoom();
+        this.handles[this.tail] = this.heap.insert(value, null);
+        this.times[this.tail] = time;
+        this.tail++;
+    }
+
+    /**
+     *
+     * move the live samples to the start of the FIFO, growing it when it is more than half full.
+     * complexity O(size)
+     *
+     */
+    private void makeRoom()
+    {
+        int count = this.tail - this.head;
+        if (2 * count > this.handles.length)
+        {
+            this.handles = Arrays.copyOf(this.handles, 2 * this.handles.length);
+            this.times = Arrays.copyOf(this.times, 2 * this.times.length);
+        }
+        if (this.head > 0)
+        {
+            System.arraycopy(this.handles, this.head, this.handles, 0, count);
+            System.arraycopy(this.times, this.head, this.times, 0, count);
+            Arrays.fill(this.handles, count, this.tail, null);
+            this.head = 0;
+            this.tail = count;
+        }
+    }
+
+    /**
+     *
+     * Expire every sample with time <= now - window and return the number of expired samples.
+     * complexity O(k log n) amortized for k expired samples, and O(1) when nothing expires
+     *
+     */
+    public int advance(long now)
+    {
+        long oldest = now - this.window;
+        int end = this.head;
+        while (end < this.tail && this.times[end] <= oldest) end++;
+        int expired = end - this.head;
+        if (expired == 0) return 0;
+        this.heap.deleteAll(this.handles, this.head, end);
+        Arrays.fill(this.handles, this.head, end, null);
+        this.head = end;
+        if (this.head == this.tail)
+        {
+            this.head = 0;
+            this.tail = 0;
+        }
+        return expired;
+    }
+
+    /**
+     *
+     * Return the min value of the live samples, or -1 if the window is empty.
+     * complexity O(1)
+     *
+     */
+    public int currentMin()
+    {
+        return this.heap.findMinKey();
+    }
+
+    /**
+     *
+     * Return the number of live samples.
+     * complexity O(1)
+     *
+     */
+    public int size()
+    {
+        return this.tail - this.head;
+    }
+
+    /**
+     *
+     * Return the total number of links done by the underlying heap.
+     * complexity O(1)
+     *
+     */
+    public int totalLinks()
+    {
+        return this.heap.totalLinks();
+    }
+}
@@ -0,0 +1,17 @@
+/**
+ * StringCompactNode
+ *
+ * A compact node with a String payload, shared by the compact engines that
+ * keep their payload as a String reference.
+ *
+ */
+public class StringCompactNode extends CompactNode
+{
+    public String info;
+
+    public StringCompactNode(int key, String info)
+    {
+        super(key);
+        this.info = info;
+    }
+}
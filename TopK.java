@@ -0,0 +1,148 @@
+/**
+ * TopK
+ *
+ * Bounded selector that keeps the k smallest keys of an unbounded stream.
+ * The kept items live in a Heap under inverted keys, so the min of the heap is
+ * the largest kept key and is the one evicted. Once the selector is full, that
+ * key is cached as the threshold, and an item that is not below it is rejected
+ * with a single comparison before the heap is touched.
+ * Evicted nodes are recycled through a HeapNodePool.
+ *
+ */
+public final class TopK
+{
+    private final int capacity;
+    private final Heap heap;
+    private long threshold; //largest kept key once full, Long.MAX_VALUE before
+
+    /**
+     *
+     * Constructor to initialize an empty selector of the k smallest keys.
+     * complexity O(1)
+     *
+     */
+    public TopK(int k)
+    {
+        if (k < 1) throw new IllegalArgumentException("k must be >= 1");
+        this.capacity = k;
+        this.heap = new Heap(true, true, new HeapNodePool());
+        this.threshold = Long.MAX_VALUE;
+    }
+
+    /**
+     *
+     * return the heap key of key, the order of keys is reversed so the heap min is the largest key.
+     * complexity O(1)
+     *
+     */
+    private static int invert(int key)
+    {
+        return ~key;
+    }
+
+    /**
+     *
+     * Offer (key,info) and return whether it was kept.
+     * an item is kept while the selector is not full or when its key is below the threshold,
+     * in which case the item with the largest key is evicted. ties keep the earlier item.
+     * complexity O(1) for a rejected item, O(log k) amortized for a kept item
+     *
+     */
+    public boolean offer(int key, String info)
+    {
+        if (key >= this.threshold) return false;
+        if (this.heap.size() == this.capacity) this.heap.deleteMin();
+        this.heap.insert(invert(key), info);
+        if (this.heap.size() == this.capacity) this.threshold = invert(this.heap.findMin().key);
+        return true;
+    }
+
+    /**
+     *
+     * Offer every key of keys, without payloads, and return the number of keys kept.
+     * complexity O(keys.length) plus O(log k) amortized for every kept key
+     *
+     */
+    public int offerAll(int[] keys)
+    {
+        int kept = 0;
+        long threshold = this.threshold;
+        for (int key : keys)
+        {
+            if (key >= threshold) continue;
+            offer(key, null);
+            threshold = this.threshold;
+            kept++;
+        }
+        return kept;
+    }
+
+    /**
+     *
+     * Return the largest kept key, which an item must be below to be kept, or Long.MAX_VALUE while not full.
+     * complexity O(1)
+     *
+     */
+    public long threshold()
+    {
+        return this.threshold;
+    }
+
+    /**
+     *
+     * Return the number of kept items.
+     * complexity O(1)
+     *
+     */
+    public int size()
+    {
+        return this.heap.size();
+    }
+
+    /**
+     *
+     * Return the kept keys in ascending order, without removing them.
+     * complexity O(k log k)
+     *
+     */
+    public int[] sortedKeys()
+    {
+        int[] keys = new int[this.heap.size()];
+        HeapCursor cursor = this.heap.cursor();
+        //the cursor reads the largest key first
+        for (int i = keys.length - 1; i >= 0; i--)
+        {
+            keys[i] = invert(cursor.next().key);
+        }
+        return keys;
+    }
+
+    /**
+     *
+     * Return the payloads of the kept items in ascending key order, without removing them.
+     * complexity O(k log k)
+     *
+     */
+    public String[] sortedInfos()
+    {
+        String[] infos = new String[this.heap.size()];
+        HeapCursor cursor = this.heap.cursor();
+        for (int i = infos.length - 1; i >= 0; i--)
+        {
+            infos[i] = cursor.next().info;
+        }
+        return infos;
+    }
+
+    /**
+     *
+     * Remove every kept item, keeping the capacity and the node pool.
+     * complexity O(k log k)
+     *
+     */
+    public void clear()
+    {
+        while (this.heap.size() > 0) this.heap.deleteMin();
+        this.threshold = Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ * VertexItem
+ *
+ * Preallocated heap handle of a graph vertex, used by the graph engines.
+ * The vertex number travels with the item, so the vertex of the min is read
+ * directly from it, and settled marks vertices that left the heap for good.
+ *
+ */
+final class VertexItem extends Heap.HeapItem
+{
+    final int vertex;
+    boolean settled;
+
+    VertexItem(int vertex)
+    {
+        super(null, 0, null);
+        this.vertex = vertex;
+    }
+
+    /**
+     *
+     * Return one handle for every vertex of the graph in compressed sparse row form.
+     * throws IllegalArgumentException if the arrays do not describe a graph with non negative weights.
+     * complexity O(n + m)
+     *
+     */
+    static VertexItem[] handlesFor(int[] offsets, int[] targets, int[] weights)
+    {
+        int n = offsets.length - 1;
+        if (n < 0 || offsets[0] != 0 || offsets[n] != targets.length || weights.length != targets.length)
+        {
+            throw new IllegalArgumentException("offsets, targets and weights do not describe a graph");
+        }
+        for (int v = 0; v < n; v++)
+        {
+            if (offsets[v] > offsets[v + 1]) throw new IllegalArgumentException("offsets must be non decreasing");
+        }
+        for (int e = 0; e < targets.length; e++)
+        {
+            if (targets[e] < 0 || targets[e] >= n) throw new IllegalArgumentException("edge " + e + " leaves the graph");
+            if (weights[e] < 0) throw new IllegalArgumentException("edge " + e + " has a negative weight");
+        }
+        VertexItem[] handles = new VertexItem[n];
+        for (int v = 0; v < n; v++)
+        {
+            handles[v] = new VertexItem(v);
+        }
+        return handles;
+    }
+}